@@ -0,0 +1,309 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A {@link JsonParser}, which can be read and written by multiple threads at
+ * the same time. Every write is applied to a private copy of the entries,
+ * which replaces the published entries, when the write is complete. Reads
+ * don't lock and always see a complete version of the entries, so read
+ * throughput scales with the amount of threads, while occasional writes
+ * continue. A single call of {@link #set(String, Object)} or
+ * {@link #remove(String)} is atomic, if it fails, the published entries stay
+ * unchanged. Use {@link #batch(Consumer)} to apply multiple changes as one
+ * atomic write. Parsing input happens outside of the lock and replaces the
+ * entries at once. The copy shares all objects with the published entries
+ * except the objects on the path of the changed keys, and wide objects copy
+ * only a few small arrays around the changed member, so a write costs the
+ * depth of the key and the logarithm of the width of the changed objects
+ * instead of the size of the document. Writes are still serialized, so the
+ * parser is meant for documents, that are read much more often than written,
+ * like a configuration.<br>
+ * A read, which consists of multiple calls, can see different versions
+ * between the calls. Use {@link #snapshot()} to read a consistent version
+ * without copying it.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * ConcurrentJsonParser config = new ConcurrentJsonParser(file);
+ * int port = config.get("server.port", Integer.class);
+ * </pre>
+ *
+ * @see {@link JsonParser}
+ */
+public class ConcurrentJsonParser extends JsonParser {
+
+	private volatile KeyTree published = new KeyTree();
+	private KeyTree draft;
+	private Thread writer;
+
+	/**
+	 * Creates a new empty parser.
+	 */
+	public ConcurrentJsonParser() {
+		super();
+	}
+
+	/**
+	 * Creates a new parser and parses the string into the parser object
+	 * structure.
+	 *
+	 * @param jsonString input the input for the parser
+	 */
+	public ConcurrentJsonParser(String jsonString) {
+		super();
+		parseIn(jsonString);
+	}
+
+	/**
+	 * Creates a new parser and reads a file and parse the file content in the
+	 * parser.
+	 *
+	 * @param jsonFile the file to read
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	public ConcurrentJsonParser(Path jsonFile) throws IOException {
+		super();
+		parseFromFile(jsonFile);
+	}
+
+	/**
+	 * Creates a shallow copy of the original parser.
+	 *
+	 * @param parser the parser to copy
+	 */
+	public ConcurrentJsonParser(KeyValueParser<?> parser) {
+		super();
+		replace(new JsonParser(parser));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(String input) {
+		return replace(new JsonParser().parseIn(input));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(byte[] input) {
+		return replace(new JsonParser().parseIn(input));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(ByteBuffer input) {
+		return replace(new JsonParser().parseIn(input));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(JsonReader reader) throws IOException {
+		return replace(new JsonParser().parseIn(reader));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(String input, Set<String> keyPaths) {
+		return replace(new JsonParser().parseIn(input, keyPaths));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(byte[] input, Set<String> keyPaths) {
+		return replace(new JsonParser().parseIn(input, keyPaths));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(JsonReader reader, Set<String> keyPaths) throws IOException {
+		return replace(new JsonParser().parseIn(reader, keyPaths));
+	}
+
+	/**
+	 * Applies multiple changes as one atomic write. The entries are copied
+	 * and published only once for the whole batch and readers see either
+	 * none or all of the changes. If the action fails, the published entries
+	 * stay unchanged.
+	 * 
+	 * @param changes the action, which changes the parser
+	 * @return the own parser object for further customizations
+	 */
+	@Override
+	public JsonParser batch(Consumer<JsonParser> changes) {
+		write(() -> super.batch(changes));
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser remove(String key) {
+		write(() -> super.remove(key));
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser setAtArrayIndex(String key, int index, Object value) {
+		write(() -> super.setAtArrayIndex(key, index, value));
+		return this;
+	}
+
+	/**
+	 * Adds the value at the end of an array by it's key. Published arrays are
+	 * shared with snapshots and readers, so every write copies the array,
+	 * before it appends the value. Use {@link #batch(Consumer)} to append many
+	 * values with a single copy.
+	 * 
+	 * @param key   the path that represents the array
+	 * @param value the value to add
+	 * @return the own parser object for further customizations
+	 * @throws IllegalArgumentException if the key represents an object or a
+	 *                                  value, which is not an array
+	 */
+	@Override
+	public JsonParser append(String key, Object value) {
+		write(() -> super.append(key, value));
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser insertAt(String key, int index, Object value) {
+		write(() -> super.insertAt(key, index, value));
+		return this;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser removeAt(String key, int index) {
+		write(() -> super.removeAt(key, index));
+		return this;
+	}
+
+	/**
+	 * Returns a read-only view of the current version of the entries. The
+	 * view doesn't copy the entries and isn't affected by later writes.
+	 *
+	 * @return the read-only view of the current version
+	 */
+	public JsonParser snapshot() {
+		return createInstance(published.view());
+	}
+
+	/**
+	 * Returns the current version of the entries without locking the parser,
+	 * like {@link #snapshot()}.
+	 *
+	 * @return the read-only view of the current version
+	 */
+	@Override
+	JsonParser copyEntries() {
+		return snapshot();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void setValue(String key, Object value) {
+		write(() -> super.setValue(key, value));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void putEntry(String key, Object value) {
+		write(() -> super.putEntry(key, value));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void clearEntries() {
+		write(super::clearEntries);
+	}
+
+	/**
+	 * Returns the private copy of the entries to the thread, which is
+	 * writing, and the published entries to all other threads.
+	 *
+	 * @return the tree of the entries
+	 */
+	@Override
+	KeyTree getTree() {
+		if (writer == Thread.currentThread()) return draft;
+		return published;
+	}
+
+	/**
+	 * Applies the action to a private copy of the entries and publishes the
+	 * copy afterwards. Writes inside of the action are applied to the same
+	 * copy.
+	 *
+	 * @param action the action, which changes the entries
+	 */
+	private synchronized void write(Runnable action) {
+		if (writer == Thread.currentThread()) {
+			action.run();
+			return;
+		}
+		draft = published.copy();
+		writer = Thread.currentThread();
+		try {
+			action.run();
+			draft.freeze();
+			published = draft;
+		} finally {
+			writer = null;
+			draft = null;
+		}
+	}
+
+	/**
+	 * Replaces the entries with the entries of a parsed parser.
+	 *
+	 * @param parser the parser, which isn't used afterwards
+	 * @return the own parser object for further customization
+	 */
+	private synchronized JsonParser replace(JsonParser parser) {
+		final KeyTree tree = parser.getTree();
+		if (writer == Thread.currentThread()) {
+			draft = tree;
+		} else {
+			tree.freeze();
+			published = tree;
+		}
+		return this;
+	}
+
+}
@@ -0,0 +1,227 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes parsers asynchronously to files for
+ * {@link Parsable#parseToFileAsync(Path)}. Saves of the same parser to the
+ * same file, which are requested while an earlier save is still waiting, are
+ * merged into this save, so a burst of saves serializes the parser only once.
+ * Saves of the same file are executed one after another. Every save writes a
+ * temporary file in the same directory, forces it to the disk and replaces
+ * the file atomically with it. The temporary file gets the permissions of
+ * the replaced file or the default permissions of new files, if the file
+ * doesn't exist yet. Key value parsers are copied in constant time and
+ * written from the copy, so they are only locked for the copy. The directory is synchronized afterwards, so
+ * the new file survives a crash, once the future of the save is completed.
+ * If the file system can't replace files atomically, the file is replaced
+ * without atomicity, so a crash during the replacement can lose the file.
+ * Saves, which are pending when the virtual machine shuts down, are finished
+ * by a shutdown hook.
+ */
+final class FileSaver {
+
+	static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+		final Thread thread = new Thread(runnable, "FileSaver");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final Map<Path, Save> SAVES = new ConcurrentHashMap<>();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(FileSaver::drain, "FileSaver-Shutdown"));
+	}
+
+	/**
+	 * Prevents the creation of instances.
+	 */
+	private FileSaver() {
+	}
+
+	/**
+	 * Requests an asynchronous save of the parser to the file. If a save of
+	 * the same parser to the same file is waiting, its future is returned
+	 * instead of scheduling a new save.
+	 *
+	 * @param <P>      the type of the parser
+	 * @param parser   the parser to save
+	 * @param file     the file to write
+	 * @param executor the executor, which writes the file
+	 * @return a future, which is completed with the parser after the file
+	 *         was replaced
+	 */
+	@SuppressWarnings("unchecked")
+	static <P extends Parsable<P>> CompletableFuture<P> save(P parser, Path file, Executor executor) {
+		final Path key = file.toAbsolutePath().normalize();
+		final Save[] created = new Save[1];
+		final Save save = SAVES.compute(key, (path, pending) -> {
+			if (pending != null && !pending.started && pending.parser == parser) return pending;
+			created[0] = new Save(parser, path, pending != null ? pending.future : null);
+			return created[0];
+		});
+		if (created[0] != null) {
+			final Save next = created[0];
+			final CompletableFuture<?> previous = next.previous != null ? next.previous : CompletableFuture.completedFuture(null);
+			previous.handle((result, exception) -> null).thenRunAsync(() -> run(next), executor).exceptionally(exception -> {
+				SAVES.remove(next.file, next);
+				next.future.completeExceptionally(exception);
+				return null;
+			});
+		}
+		return (CompletableFuture<P>) (CompletableFuture<?>) save.future;
+	}
+
+	/**
+	 * Executes a save, after the previous save of the same file completed.
+	 *
+	 * @param save the save to execute
+	 */
+	private static void run(Save save) {
+		SAVES.computeIfPresent(save.file, (path, pending) -> {
+			if (pending == save) save.started = true;
+			return pending;
+		});
+		try {
+			write(save.parser, save.file);
+			save.future.complete(save.parser);
+		} catch (IOException | RuntimeException exception) {
+			save.future.completeExceptionally(exception);
+		} finally {
+			SAVES.remove(save.file, save);
+		}
+	}
+
+	/**
+	 * Waits until all pending saves are completed. Saves, which fail, are
+	 * ignored.
+	 */
+	private static void drain() {
+		while (!SAVES.isEmpty()) {
+			for (Save save : SAVES.values()) save.future.handle((result, exception) -> null).join();
+		}
+	}
+
+	/**
+	 * Writes the parser to a temporary file, forces it to the disk and
+	 * replaces the file with it. Key value parsers are written from a copy,
+	 * other parsers are locked while they are written.
+	 *
+	 * @param parser the parser to write
+	 * @param file   the file to replace
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private static void write(Parsable<?> parser, Path file) throws IOException {
+		final Path directory = file.getParent();
+		if (directory != null) Files.createDirectories(directory);
+		final Path temporary = createTemporaryFile(file);
+		try {
+			if (Files.exists(file) && Files.getFileAttributeView(file, PosixFileAttributeView.class) != null) {
+				Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(file));
+			}
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				final Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+				if (parser instanceof KeyValueParser) {
+					((KeyValueParser<?>) parser).copyEntries().parseOut(writer);
+				} else {
+					synchronized (parser) {
+						parser.parseOut(writer);
+					}
+				}
+				writer.flush();
+				channel.force(true);
+			}
+			try {
+				Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException exception) {
+				Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			if (directory != null) syncDirectory(directory);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Creates an empty temporary file next to the file. Unlike
+	 * {@link Files#createTempFile(Path, String, String)} the file is created
+	 * with the default permissions of new files instead of being readable
+	 * only by the owner.
+	 *
+	 * @param file the file, which will be replaced
+	 * @return the path of the temporary file
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private static Path createTemporaryFile(Path file) throws IOException {
+		while (true) {
+			final String suffix = Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36);
+			try {
+				return Files.createFile(file.resolveSibling(file.getFileName() + "." + suffix + ".tmp"));
+			} catch (FileAlreadyExistsException exception) {
+				// another file uses the name already, try the next one
+			}
+		}
+	}
+
+	/**
+	 * Forces the entries of the directory to the disk, so that a replaced
+	 * file survives a crash. Platforms, which can't open directories, like
+	 * Windows, persist the replacement without it.
+	 *
+	 * @param directory the directory of the replaced file
+	 */
+	private static void syncDirectory(Path directory) {
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException exception) {
+			// directories can't be opened or synchronized on this platform
+		}
+	}
+
+	/**
+	 * Represents a requested save of a parser to a file.
+	 */
+	private static class Save {
+
+		private final Parsable<?> parser;
+		private final Path file;
+		private final CompletableFuture<?> previous;
+		private final CompletableFuture<Object> future = new CompletableFuture<>();
+		private volatile boolean started;
+
+		/**
+		 * Creates a new save.
+		 *
+		 * @param parser   the parser to save
+		 * @param file     the normalized absolute path of the file
+		 * @param previous the future of the previous save of the file or
+		 *                 null
+		 */
+		private Save(Parsable<?> parser, Path file, CompletableFuture<?> previous) {
+			this.parser = parser;
+			this.file = file;
+			this.previous = previous;
+		}
+
+	}
+
+}
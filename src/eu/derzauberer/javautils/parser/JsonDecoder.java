@@ -0,0 +1,156 @@
+package eu.derzauberer.javautils.parser;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Decodes a sequence of UTF-8 encoded json documents, which arrive in chunks
+ * of arbitrary size, for example from a socket. The decoder keeps the state of
+ * the current document between the calls of {@link #feed(byte[], int, int)}
+ * and passes every document as {@link JsonParser} to the action as soon as its
+ * last byte arrived. Documents can be pretty printed and can be separated by
+ * whitespaces or line breaks, but every document has to be an object or an
+ * array.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * JsonDecoder decoder = new JsonDecoder(parser -&gt; System.out.println(parser.get("id")));
+ * decoder.feed(chunk, 0, length);
+ * </pre>
+ *
+ * @see {@link JsonParser}
+ */
+public class JsonDecoder {
+
+	private final Consumer<JsonParser> action;
+	private byte[] buffer = new byte[256];
+	private int length;
+	private int depth;
+	private boolean isString;
+	private boolean isEscaped;
+
+	/**
+	 * Creates a new decoder, which passes every complete document to the
+	 * action.
+	 *
+	 * @param action the action to execute for every complete document
+	 */
+	public JsonDecoder(Consumer<JsonParser> action) {
+		this.action = action;
+	}
+
+	/**
+	 * Feeds the next chunk of bytes to the decoder.
+	 *
+	 * @param chunk the chunk of bytes
+	 * @see #feed(byte[], int, int)
+	 */
+	public void feed(byte[] chunk) {
+		feed(chunk, 0, chunk.length);
+	}
+
+	/**
+	 * Feeds the next chunk of bytes to the decoder. Every document, which is
+	 * completed by this chunk, is parsed and passed to the action before the
+	 * method returns. Incomplete documents are kept until the next chunk
+	 * arrives. Invalid documents are skipped and the exception is thrown
+	 * after the remaining documents of the chunk were processed. Exceptions
+	 * of the action are handled the same way, so the decoder stays usable
+	 * and only the first exception of the chunk is thrown.
+	 *
+	 * @param chunk  the byte array, which contains the chunk
+	 * @param offset the index of the first byte of the chunk
+	 * @param count  the amount of bytes of the chunk
+	 * @throws ParserException           if a document is not valid json
+	 * @throws IndexOutOfBoundsException if the range is outside of the array
+	 * @throws RuntimeException          if the action threw an exception
+	 */
+	public void feed(byte[] chunk, int offset, int count) {
+		if (offset < 0 || count < 0 || offset + count > chunk.length) throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + count) + ") out of bounds for length " + chunk.length + "!");
+		final int end = offset + count;
+		int start = length > 0 ? offset : -1;
+		RuntimeException exception = null;
+		for (int i = offset; i < end; i++) {
+			final byte character = chunk[i];
+			if (depth == 0) {
+				if (JsonSource.isWhitespace(character)) continue;
+				if (character != '{' && character != '[') {
+					if (exception == null) exception = new ParserException("Unexpected character '" + (char) character + "' between documents!");
+					continue;
+				}
+				start = i;
+				depth = 1;
+			} else if (isString) {
+				if (isEscaped) isEscaped = false;
+				else if (character == '\\') isEscaped = true;
+				else if (character == '"') isString = false;
+			} else if (character == '"') {
+				isString = true;
+			} else if (character == '{' || character == '[') {
+				depth++;
+			} else if ((character == '}' || character == ']') && --depth == 0) {
+				try {
+					if (length == 0) {
+						emit(ByteBuffer.wrap(chunk, start, i + 1 - start));
+					} else {
+						append(chunk, start, i + 1);
+						emit(ByteBuffer.wrap(buffer, 0, length));
+					}
+				} catch (RuntimeException documentException) {
+					if (exception == null) exception = documentException;
+				} finally {
+					length = 0;
+					start = -1;
+				}
+			}
+		}
+		if (start != -1) append(chunk, start, end);
+		if (exception != null) throw exception;
+	}
+
+	/**
+	 * Discards the incomplete document and resets the state of the decoder.
+	 */
+	public void reset() {
+		length = 0;
+		depth = 0;
+		isString = false;
+		isEscaped = false;
+	}
+
+	/**
+	 * Checks if the decoder received the beginning of a document, which is
+	 * not complete yet.
+	 *
+	 * @return if a document is incomplete
+	 */
+	public boolean isPending() {
+		return depth > 0;
+	}
+
+	/**
+	 * Parses a complete document and passes it to the action.
+	 *
+	 * @param document the bytes of the document
+	 */
+	private void emit(ByteBuffer document) {
+		action.accept(new JsonParser().parseIn(document));
+	}
+
+	/**
+	 * Appends a range of the chunk to the bytes of the incomplete document.
+	 *
+	 * @param chunk the byte array, which contains the chunk
+	 * @param start the index of the first byte
+	 * @param end   the index after the last byte
+	 */
+	private void append(byte[] chunk, int start, int end) {
+		final int count = end - start;
+		if (length + count > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+		System.arraycopy(chunk, start, buffer, length, count);
+		length += count;
+	}
+
+}
@@ -0,0 +1,225 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes parsers as UTF-8 json documents directly into a {@link ByteBuffer},
+ * for example to send them over a socket. The document is encoded while the
+ * parser is walked, so no intermediate string or byte array of the whole
+ * document is created. Every document is terminated with a line break, so it
+ * can be received line by line or with a {@link JsonDecoder}. The encoder
+ * reuses its own buffer for every document and is not thread safe.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * JsonEncoder encoder = new JsonEncoder();
+ * client.sendBytes(encoder.encode(parser));
+ * </pre>
+ *
+ * @see {@link JsonWriter}
+ */
+public class JsonEncoder {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int CHARACTER_BUFFER_SIZE = 512;
+
+	private final boolean oneliner;
+	private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+	/**
+	 * Creates a new encoder, which encodes the documents in a single line.
+	 */
+	public JsonEncoder() {
+		this(true);
+	}
+
+	/**
+	 * Creates a new encoder.
+	 *
+	 * @param oneliner if the documents should be encoded in a single line
+	 */
+	public JsonEncoder(boolean oneliner) {
+		this.oneliner = oneliner;
+	}
+
+	/**
+	 * Encodes the parser into the reused buffer of the encoder, which grows
+	 * with the size of the documents. The returned buffer contains the
+	 * document between its position and limit and is only valid until the
+	 * next call of this method.
+	 *
+	 * @param parser the parser to encode
+	 * @return the reused buffer, which contains the encoded document
+	 */
+	public ByteBuffer encode(KeyValueParser<?> parser) {
+		buffer.clear();
+		final BufferWriter writer = new BufferWriter(buffer, true);
+		write(parser, writer);
+		buffer = writer.buffer;
+		return buffer.flip();
+	}
+
+	/**
+	 * Encodes the parser into the given buffer starting at its position. The
+	 * position of the buffer is moved behind the document. If the encoding
+	 * fails, the position of the buffer is reset, so the buffer contains none
+	 * of the document and only the space behind its position may have been
+	 * overwritten.
+	 *
+	 * @param parser the parser to encode
+	 * @param target the buffer to encode the document into
+	 * @throws BufferOverflowException if the document doesn't fit into the
+	 *                                 remaining space of the buffer
+	 */
+	public void encode(KeyValueParser<?> parser, ByteBuffer target) {
+		final int position = target.position();
+		try {
+			write(parser, new BufferWriter(target, false));
+		} catch (RuntimeException exception) {
+			target.position(position);
+			throw exception;
+		}
+	}
+
+	/**
+	 * Writes the parser followed by a line break to the writer.
+	 *
+	 * @param parser the parser to write
+	 * @param writer the writer, which encodes the characters
+	 */
+	private void write(KeyValueParser<?> parser, BufferWriter writer) {
+		final JsonParser jsonParser = parser instanceof JsonParser ? (JsonParser) parser : new JsonParser(parser);
+		try {
+			jsonParser.parseOut(new JsonWriter(writer, oneliner, CHARACTER_BUFFER_SIZE));
+			writer.write('\n');
+			writer.close();
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+	}
+
+	/**
+	 * A {@link Writer}, which encodes the characters as UTF-8 into a
+	 * {@link ByteBuffer}.
+	 */
+	private static class BufferWriter extends Writer {
+
+		private ByteBuffer buffer;
+		private final boolean growable;
+		private char highSurrogate;
+
+		/**
+		 * Creates a new writer, which encodes into the buffer.
+		 *
+		 * @param buffer   the buffer to encode into
+		 * @param growable if the buffer can be replaced by a larger one
+		 */
+		private BufferWriter(ByteBuffer buffer, boolean growable) {
+			this.buffer = buffer;
+			this.growable = growable;
+		}
+
+		@Override
+		public void write(char[] characters, int offset, int length) {
+			final int end = offset + length;
+			int i = offset;
+			while (i < end) {
+				if (highSurrogate == 0 && buffer.hasArray()) {
+					if (growable) ensureRemaining(end - i);
+					final byte[] array = buffer.array();
+					final int arrayOffset = buffer.arrayOffset();
+					final int limit = Math.min(end, i + buffer.remaining());
+					int position = arrayOffset + buffer.position();
+					while (i < limit && characters[i] < 0x80) array[position++] = (byte) characters[i++];
+					buffer.position(position - arrayOffset);
+				}
+				if (i < end) encode(characters[i++]);
+			}
+		}
+
+		@Override
+		public void write(int character) {
+			encode((char) character);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+			if (highSurrogate != 0) {
+				highSurrogate = 0;
+				ensureRemaining(1);
+				buffer.put((byte) '?');
+			}
+		}
+
+		/**
+		 * Encodes a single character. High surrogates are kept until the low
+		 * surrogate arrives, unpaired surrogates are replaced by a question
+		 * mark.
+		 *
+		 * @param character the character to encode
+		 */
+		private void encode(char character) {
+			if (highSurrogate != 0) {
+				final char high = highSurrogate;
+				highSurrogate = 0;
+				if (Character.isLowSurrogate(character)) {
+					final int codePoint = Character.toCodePoint(high, character);
+					ensureRemaining(4);
+					buffer.put((byte) (0xF0 | (codePoint >> 18)));
+					buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+					buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+					buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+					return;
+				}
+				ensureRemaining(1);
+				buffer.put((byte) '?');
+			}
+			if (character < 0x80) {
+				ensureRemaining(1);
+				buffer.put((byte) character);
+			} else if (character < 0x800) {
+				ensureRemaining(2);
+				buffer.put((byte) (0xC0 | (character >> 6)));
+				buffer.put((byte) (0x80 | (character & 0x3F)));
+			} else if (Character.isHighSurrogate(character)) {
+				highSurrogate = character;
+			} else if (Character.isLowSurrogate(character)) {
+				ensureRemaining(1);
+				buffer.put((byte) '?');
+			} else {
+				ensureRemaining(3);
+				buffer.put((byte) (0xE0 | (character >> 12)));
+				buffer.put((byte) (0x80 | ((character >> 6) & 0x3F)));
+				buffer.put((byte) (0x80 | (character & 0x3F)));
+			}
+		}
+
+		/**
+		 * Makes sure, that the buffer has space for the given amount of
+		 * bytes, and replaces a growable buffer with a larger one otherwise.
+		 *
+		 * @param count the amount of bytes
+		 * @throws BufferOverflowException if the buffer is full and can't
+		 *                                 grow
+		 */
+		private void ensureRemaining(int count) {
+			if (buffer.remaining() >= count) return;
+			if (!growable) throw new BufferOverflowException();
+			final ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + count));
+			buffer.flip();
+			larger.put(buffer);
+			buffer = larger;
+		}
+
+	}
+
+}
@@ -0,0 +1,346 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parses JSON Lines (NDJSON) documents, in which every line contains one json
+ * record. The input is split on the line breaks and the records are parsed in
+ * parallel on the common {@link java.util.concurrent.ForkJoinPool}. Files are
+ * mapped into memory and split into ranges, so every worker parses its own
+ * part of the file. Streams are read sequentially in batches of lines, which
+ * are parsed in parallel. Empty lines are skipped.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * try (Stream&lt;JsonParser&gt; records = JsonLinesParser.parse(file, false)) {
+ *     records.forEach(record -&gt; System.out.println(record.get("id")));
+ * }
+ * </pre>
+ *
+ * @see {@link JsonParser}
+ */
+public class JsonLinesParser {
+
+	private static final int MAPPING_SIZE = 1 << 30;
+	private static final int MIN_SPLIT_SIZE = 1 << 16;
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Parses every line of the UTF-8 encoded file as json record in
+	 * parallel. The records are returned in the order of the file. The
+	 * stream has to be closed to release the file.
+	 *
+	 * @param file the file to read
+	 * @return a parallel stream of the parsed records
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 * @throws ParserException   if a record is not valid json, while the
+	 *                           stream is processed
+	 */
+	public static Stream<JsonParser> parse(Path file) throws IOException {
+		return parse(file, true);
+	}
+
+	/**
+	 * Parses every line of the UTF-8 encoded file as json record in
+	 * parallel. Unordered streams don't have to keep the order of the file,
+	 * which improves the throughput of some operations. The stream has to be
+	 * closed to release the file.
+	 *
+	 * @param file    the file to read
+	 * @param ordered if the records have to keep the order of the file
+	 * @return a parallel stream of the parsed records
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 * @throws ParserException   if a record is not valid json, while the
+	 *                           stream is processed
+	 */
+	public static Stream<JsonParser> parse(Path file, boolean ordered) throws IOException {
+		final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			final Stream<ByteBuffer> records = StreamSupport.stream(new FileRecordSpliterator(channel, 0, channel.size()), true);
+			return parseRecords(records.onClose(() -> {
+				try {
+					channel.close();
+				} catch (IOException exception) {
+					throw new UncheckedIOException(exception);
+				}
+			}), ordered);
+		} catch (IOException | RuntimeException exception) {
+			channel.close();
+			throw exception;
+		}
+	}
+
+	/**
+	 * Parses every line of the UTF-8 encoded stream as json record in
+	 * parallel. The stream is read in batches of lines and the records are
+	 * returned in the order of the input stream. Closing the returned stream
+	 * will close the input stream.
+	 *
+	 * @param input the input stream to read
+	 * @return a parallel stream of the parsed records
+	 * @throws ParserException      if a record is not valid json, while the
+	 *                              stream is processed
+	 * @throws UncheckedIOException if an I/O exception occurs, while the
+	 *                              stream is processed
+	 */
+	public static Stream<JsonParser> parse(InputStream input) {
+		return parse(input, true);
+	}
+
+	/**
+	 * Parses every line of the UTF-8 encoded stream as json record in
+	 * parallel. The stream is read in batches of lines. Unordered streams
+	 * don't have to keep the order of the input stream, which improves the
+	 * throughput of some operations. Closing the returned stream will close
+	 * the input stream.
+	 *
+	 * @param input   the input stream to read
+	 * @param ordered if the records have to keep the order of the input
+	 *                stream
+	 * @return a parallel stream of the parsed records
+	 * @throws ParserException      if a record is not valid json, while the
+	 *                              stream is processed
+	 * @throws UncheckedIOException if an I/O exception occurs, while the
+	 *                              stream is processed
+	 */
+	public static Stream<JsonParser> parse(InputStream input, boolean ordered) {
+		final Stream<ByteBuffer> records = StreamSupport.stream(new StreamRecordSpliterator(input), true);
+		return parseRecords(records.onClose(() -> {
+			try {
+				input.close();
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}), ordered);
+	}
+
+	/**
+	 * Parses the stream of raw records into parsers.
+	 *
+	 * @param records the stream of raw records
+	 * @param ordered if the records have to keep their order
+	 * @return the stream of parsed records
+	 */
+	private static Stream<JsonParser> parseRecords(Stream<ByteBuffer> records, boolean ordered) {
+		return (ordered ? records : records.unordered()).map(record -> new JsonParser().parseIn(record));
+	}
+
+	/**
+	 * Checks if the range of the buffer contains only whitespaces.
+	 *
+	 * @param buffer the buffer to check
+	 * @param start  the index of the first byte
+	 * @param end    the index after the last byte
+	 * @return if the range contains only whitespaces
+	 */
+	private static boolean isBlank(ByteBuffer buffer, int start, int end) {
+		for (int i = start; i < end; i++) {
+			if (!JsonSource.isWhitespace(buffer.get(i))) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Splits a range of a file on line breaks into records. The range is
+	 * split in the middle at the next line break and only mapped into
+	 * memory, when it is traversed.
+	 */
+	private static class FileRecordSpliterator implements Spliterator<ByteBuffer> {
+
+		private final FileChannel channel;
+		private long position;
+		private final long end;
+		private ByteBuffer window;
+		private int windowPosition;
+
+		/**
+		 * Creates a new spliterator for a range of the file, which starts at
+		 * the beginning of a line.
+		 *
+		 * @param channel the channel of the file
+		 * @param start   the position of the first byte
+		 * @param end     the position after the last byte
+		 */
+		private FileRecordSpliterator(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+			while (true) {
+				if ((window == null || windowPosition >= window.limit()) && !mapNextWindow()) return false;
+				int lineEnd = windowPosition;
+				while (lineEnd < window.limit() && window.get(lineEnd) != '\n') lineEnd++;
+				final int lineStart = windowPosition;
+				windowPosition = lineEnd + 1;
+				if (!isBlank(window, lineStart, lineEnd)) {
+					action.accept(window.slice(lineStart, lineEnd - lineStart));
+					return true;
+				}
+			}
+		}
+
+		@Override
+		public Spliterator<ByteBuffer> trySplit() {
+			if (window != null || end - position < MIN_SPLIT_SIZE) return null;
+			final long boundary = nextLineStart(position + (end - position) / 2);
+			if (boundary >= end) return null;
+			final Spliterator<ByteBuffer> prefix = new FileRecordSpliterator(channel, position, boundary);
+			position = boundary;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - position + (window != null ? window.limit() - windowPosition : 0);
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL | IMMUTABLE;
+		}
+
+		/**
+		 * Maps the next window of the range, which ends with a line break or
+		 * at the end of the range.
+		 *
+		 * @return if a new window was mapped
+		 * @throws ParserException if a line is longer than the window
+		 */
+		private boolean mapNextWindow() {
+			if (position >= end) return false;
+			try {
+				window = channel.map(MapMode.READ_ONLY, position, Math.min(end - position, MAPPING_SIZE));
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+			if (position + window.limit() < end) {
+				int lastLineBreak = window.limit() - 1;
+				while (lastLineBreak >= 0 && window.get(lastLineBreak) != '\n') lastLineBreak--;
+				if (lastLineBreak < 0) throw new ParserException("The record at position " + position + " is larger than " + MAPPING_SIZE + " bytes!");
+				window.limit(lastLineBreak + 1);
+			}
+			position += window.limit();
+			windowPosition = 0;
+			return true;
+		}
+
+		/**
+		 * Finds the start of the next line after the position.
+		 *
+		 * @param from the position to start searching from
+		 * @return the position after the next line break or the end of the
+		 *         range
+		 */
+		private long nextLineStart(long from) {
+			final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			long current = from;
+			try {
+				while (current < end) {
+					buffer.clear();
+					final int count = channel.read(buffer, current);
+					if (count <= 0) return end;
+					for (int i = 0; i < count; i++) {
+						if (buffer.get(i) == '\n') return current + i + 1;
+					}
+					current += count;
+				}
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+			return end;
+		}
+
+	}
+
+	/**
+	 * Reads the lines of an input stream as records. Parallel streams split
+	 * the records in batches of growing size, which are parsed in parallel.
+	 */
+	private static class StreamRecordSpliterator extends Spliterators.AbstractSpliterator<ByteBuffer> {
+
+		private final InputStream input;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private byte[] line = new byte[256];
+		private int position;
+		private int limit;
+		private boolean finished;
+
+		/**
+		 * Creates a new spliterator, which reads the lines from the input
+		 * stream.
+		 *
+		 * @param input the input stream to read from
+		 */
+		private StreamRecordSpliterator(InputStream input) {
+			super(Long.MAX_VALUE, ORDERED | NONNULL | IMMUTABLE);
+			this.input = input;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+			while (!finished) {
+				final int length = readLine();
+				if (length > 0 && !isBlank(ByteBuffer.wrap(line, 0, length), 0, length)) {
+					action.accept(ByteBuffer.wrap(Arrays.copyOf(line, length)));
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Reads the next line without the line break into the line buffer.
+		 *
+		 * @return the length of the line
+		 */
+		private int readLine() {
+			int length = 0;
+			try {
+				while (true) {
+					if (position >= limit) {
+						limit = input.read(buffer);
+						position = 0;
+						if (limit == -1) {
+							finished = true;
+							limit = 0;
+							return length;
+						}
+					}
+					final int start = position;
+					while (position < limit && buffer[position] != '\n') position++;
+					final int count = position - start;
+					if (length + count > line.length) line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+					System.arraycopy(buffer, start, line, length, count);
+					length += count;
+					if (position < limit) {
+						position++;
+						return length;
+					}
+				}
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+	}
+
+}
@@ -1,11 +1,27 @@
 package eu.derzauberer.javautils.parser;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+
+import eu.derzauberer.javautils.parser.JsonReader.JsonToken;
 
 /**
  * The class provides a parser based on keys. Each key represents
@@ -72,105 +88,353 @@ public class JsonParser extends KeyValueParser<JsonParser> {
 
 	/**
 	 * {@inheritDoc}
+	 * 
+	 * @throws ParserException if the document is not valid json
 	 */
 	@Override
 	public JsonParser parseIn(String input) {
-		final StringBuilder key = new StringBuilder();
-		final StringBuilder name = new StringBuilder();
-		final StringBuilder value = new StringBuilder();
-		final ArrayList<Object> array = new ArrayList<>();
-		int arrayLayer = 0;
-		boolean isString = false;
-		boolean isValue = false;
-		boolean isArray = false;
-		char lastCharacter = ' ';
-		for (char character : input.toCharArray()) {
-			if (character == '"' && lastCharacter != '\\') {
-				isString = !isString;
-			} else if (isArray) {
-				if ((character == ',' || character == ']') && arrayLayer == 0) {
-					if (value.length() > 0 && value.charAt(0) == '{' && value.charAt(value.length() - 1) == '}') {
-						array.add(new JsonParser(value.toString()));
-					} else if (value.length() > 0 && value.charAt(0) == '[' && value.charAt(value.length() - 1) == ']') {
-						array.add(new JsonParser(value.toString()).get(null));
-					} else if (value.length() > 0) {
-						array.add(ParsingUtils.autoDeserializePrimitive(value.toString()));
-					}
-					value.setLength(0);
-					if (character == ']') {
-						isArray = false;
-						isValue = false;
-						if (name.length() == 0) {
-							getStructure().add(null);
-							getEntries().put(null, array.toArray());
-						} else {
-							getStructure().add(key + name.toString());
-							getEntries().put(key.toString() + name.toString(), array.toArray());
-						}
-						name.setLength(0);
-						value.setLength(0);
-						array.clear();
-					}
-				} 
-				if (isString || (character != ' ' && character != '\t' && character != '\n' && character != '\r') && !(arrayLayer == 0 && (character == ',' || character == ']'))) {
-					value.append(character);
-				}
-				if (!isString && isArray) {
-					if (character == '{' || character == '[') arrayLayer++;
-					else if (character == '}' || character == ']') arrayLayer--;
-				}
-			} else if (isString) {
-				if (!isValue) name.append(character); else value.append(character);
-			} else if (isValue && character != ',' && character != '{' && character != '}' && character != '[' && character != ']') {
-				if (character != ' ' && character != '\t' && character != '\n' && character != '\r') value.append(character);
-			} else if (character == ':') {
-				isValue = true;
-			} else if (character == '{') {
-				isValue = false;
-				if (name.length() > 0) key.append(name + ".");
-				name.setLength(0);
-				value.setLength(0);
-			} else if (character == '}' || character == ',') {
-				if (isValue) {
-					isValue = false;
-					getStructure().add(key.toString() + name);
-					getEntries().put(key.toString() + name, ParsingUtils.autoDeserializePrimitive(value.toString()));
-					name.setLength(0);
-					value.setLength(0);
-				}
-				if (character == '}') {
-					if (key.length() > 0 && key.toString().contains(".") && key.indexOf(".") != key.lastIndexOf(".")) {
-						key.deleteCharAt(key.length() - 1);
-						key.delete(key.lastIndexOf("."), key.length());
-					} else {
-						key.setLength(0);
-					}
-				}
-			} else if (character == '[') {
-				isArray = true;
-			}
-			lastCharacter = character;
+		return readDocument(new JsonReader(input));
+	}
+	
+	/**
+	 * Parses the UTF-8 encoded json document into the parser object
+	 * structure. The structure is scanned directly on the bytes without
+	 * decoding the whole document, only names and values are decoded into
+	 * strings. This call will override the existing content of the parser!
+	 * 
+	 * @param input the UTF-8 encoded json document
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 */
+	public JsonParser parseIn(byte[] input) {
+		return readDocument(new JsonReader(input));
+	}
+	
+	/**
+	 * Parses the UTF-8 encoded json document between the position and the
+	 * limit of the buffer into the parser object structure. Heap buffers,
+	 * slices and direct buffers are supported and the position of the buffer
+	 * will not be changed. The structure is scanned directly on the bytes
+	 * without decoding the whole document, only names and values are decoded
+	 * into strings. This call will override the existing content of the
+	 * parser!
+	 * 
+	 * @param input the buffer, which contains the json document
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 */
+	public JsonParser parseIn(ByteBuffer input) {
+		return readDocument(new JsonReader(input));
+	}
+	
+	/**
+	 * Parses the json document from a {@link Reader} into the parser object
+	 * structure. The reader is read in chunks, the whole document will never
+	 * be loaded into memory at once. This call will override the existing
+	 * content of the parser!
+	 * 
+	 * @param reader the reader to read the json document from
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 * @throws IOException     if an I/O exception occurs
+	 */
+	public JsonParser parseIn(Reader reader) throws IOException {
+		return parseIn(new JsonReader(reader));
+	}
+	
+	/**
+	 * Parses the UTF-8 encoded json document from an {@link InputStream} into
+	 * the parser object structure. The stream is read in chunks, the whole
+	 * document will never be loaded into memory at once. This call will
+	 * override the existing content of the parser!
+	 * 
+	 * @param input the input stream to read the json document from
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 * @throws IOException     if an I/O exception occurs
+	 */
+	public JsonParser parseIn(InputStream input) throws IOException {
+		return parseIn(new JsonReader(input));
+	}
+	
+	/**
+	 * Parses the remaining tokens of a {@link JsonReader} into the parser
+	 * object structure. This call will override the existing content of the
+	 * parser!
+	 * 
+	 * @param reader the reader to take the tokens from
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 * @throws IOException     if an I/O exception occurs
+	 */
+	public JsonParser parseIn(JsonReader reader) throws IOException {
+		try {
+			return readDocument(reader);
+		} catch (UncheckedIOException exception) {
+			throw exception.getCause();
 		}
+	}
+	
+	/**
+	 * Parses only the given key paths of the json document into the parser
+	 * object structure. A key path selects the value or the whole object at
+	 * this path. Objects on the way to a selected path are read member by
+	 * member and all other members are skipped without decoding their names,
+	 * strings or values. A root array is always read completely. This call
+	 * will override the existing content of the parser!
+	 * 
+	 * @param input    the input for the parser
+	 * @param keyPaths the dotted paths of the values and objects to read
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 */
+	public JsonParser parseIn(String input, Set<String> keyPaths) {
+		return readDocument(new JsonReader(input), keyPaths);
+	}
+	
+	/**
+	 * Parses only the given key paths of the UTF-8 encoded json document into
+	 * the parser object structure like {@link #parseIn(String, Set)}. This
+	 * call will override the existing content of the parser!
+	 * 
+	 * @param input    the UTF-8 encoded json document
+	 * @param keyPaths the dotted paths of the values and objects to read
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 */
+	public JsonParser parseIn(byte[] input, Set<String> keyPaths) {
+		return readDocument(new JsonReader(input), keyPaths);
+	}
+	
+	/**
+	 * Parses only the given key paths of the remaining tokens of a
+	 * {@link JsonReader} into the parser object structure like
+	 * {@link #parseIn(String, Set)}. This call will override the existing
+	 * content of the parser!
+	 * 
+	 * @param reader   the reader to take the tokens from
+	 * @param keyPaths the dotted paths of the values and objects to read
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 * @throws IOException     if an I/O exception occurs
+	 */
+	public JsonParser parseIn(JsonReader reader, Set<String> keyPaths) throws IOException {
+		try {
+			return readDocument(reader, keyPaths);
+		} catch (UncheckedIOException exception) {
+			throw exception.getCause();
+		}
+	}
+	
+	/**
+	 * Reads the file as stream and parses its content with
+	 * {@link #parseIn(InputStream)}. This call will override the existing
+	 * content of the parser!
+	 * 
+	 * @param file the file to read
+	 * @return the own parser object for further customization
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	@Override
+	public JsonParser parseFromFile(Path file) throws IOException {
+		try (InputStream input = Files.newInputStream(file)) {
+			return parseIn(input);
+		}
+	}
+	
+	/**
+	 * Reads the file and parses its content into the parser object structure.
+	 * If memory mapped is enabled, the file will be mapped into memory with
+	 * {@link FileChannel#map(MapMode, long, long)} and parsed directly from
+	 * the mapped bytes. The file content then stays in the page cache of the
+	 * operating system and only the kept names and values are allocated on
+	 * the heap. Otherwise the file is read as stream like in
+	 * {@link #parseFromFile(Path)}. This call will override the existing
+	 * content of the parser!
+	 * 
+	 * @param file         the file to read
+	 * @param memoryMapped if the file should be mapped into memory
+	 * @return the own parser object for further customization
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	public JsonParser parseFromFile(Path file, boolean memoryMapped) throws IOException {
+		if (!memoryMapped) return parseFromFile(file);
+		try (JsonReader reader = new JsonReader(FileChannel.open(file, StandardOpenOption.READ))) {
+			return parseIn(reader);
+		}
+	}
+	
+	/**
+	 * Reads the whole document from the reader in a single pass and replaces
+	 * the content of the parser with it.
+	 * 
+	 * @param reader the reader to take the tokens from
+	 * @return the own parser object for further customization
+	 * @throws ParserException      if the document is not valid json
+	 * @throws UncheckedIOException if an I/O exception occurs
+	 */
+	private JsonParser readDocument(JsonReader reader) {
+		return readDocument(reader, null);
+	}
+	
+	/**
+	 * Reads the document from the reader in a single pass and replaces the
+	 * content of the parser with the selected key paths of it.
+	 * 
+	 * @param reader   the reader to take the tokens from
+	 * @param keyPaths the dotted paths to read or null to read all paths
+	 * @return the own parser object for further customization
+	 * @throws ParserException      if the document is not valid json
+	 * @throws UncheckedIOException if an I/O exception occurs
+	 */
+	private JsonParser readDocument(JsonReader reader, Set<String> keyPaths) {
+		clearEntries();
+		switch (reader.next()) {
+		case BEGIN_OBJECT:
+			if (keyPaths == null) readObject(reader, "");
+			else readObject(reader, "", keyPaths, getParentPaths(keyPaths));
+			break;
+		case BEGIN_ARRAY: putEntry(null, PackedArrays.pack(readArray(reader))); break;
+		case END_DOCUMENT: return this;
+		default: throw new ParserException("The root element has to be an object or an array!");
+		}
+		if (reader.next() != JsonToken.END_DOCUMENT) throw new ParserException("Unexpected content after the root element!");
 		return this;
 	}
 	
 	/**
-	 * {@inheritDoc}
+	 * Reads the members of an object from the reader, after its
+	 * {@link JsonToken#BEGIN_OBJECT} token was consumed, and puts them into
+	 * the parser.
+	 * 
+	 * @param reader the reader to take the tokens from
+	 * @param prefix the path of the object followed by a dot or an empty
+	 *               string for the root object
+	 */
+	private void readObject(JsonReader reader, String prefix) {
+		while (reader.next() != JsonToken.END_OBJECT) {
+			readMember(reader, prefix + reader.getName());
+		}
+	}
+	
+	/**
+	 * Reads the members of an object from the reader, after its
+	 * {@link JsonToken#BEGIN_OBJECT} token was consumed, and puts the
+	 * selected members into the parser. All other members are skipped.
+	 * 
+	 * @param reader      the reader to take the tokens from
+	 * @param prefix      the path of the object followed by a dot or an
+	 *                    empty string for the root object
+	 * @param keyPaths    the dotted paths to read
+	 * @param parentPaths the paths of all objects, which contain a path to
+	 *                    read
+	 */
+	private void readObject(JsonReader reader, String prefix, Set<String> keyPaths, Set<String> parentPaths) {
+		while (reader.next() != JsonToken.END_OBJECT) {
+			final String key = prefix + reader.getName();
+			if (keyPaths.contains(key)) {
+				readMember(reader, key);
+			} else if (parentPaths.contains(key) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+				reader.next();
+				readObject(reader, key + ".", keyPaths, parentPaths);
+			} else {
+				reader.skipValue();
+			}
+		}
+	}
+	
+	/**
+	 * Reads the value of an object member from the reader, after its
+	 * {@link JsonToken#NAME} token was consumed, and puts it into the parser.
+	 * 
+	 * @param reader the reader to take the tokens from
+	 * @param key    the path of the member
+	 */
+	private void readMember(JsonReader reader, String key) {
+		switch (reader.next()) {
+		case BEGIN_OBJECT: readObject(reader, key + "."); break;
+		case BEGIN_ARRAY: putEntry(key, PackedArrays.pack(readArray(reader))); break;
+		default: putEntry(key, reader.getValue()); break;
+		}
+	}
+	
+	/**
+	 * Collects the paths of all objects, which contain one of the key paths.
+	 * 
+	 * @param keyPaths the dotted key paths
+	 * @return the paths of the parent objects
+	 */
+	private static Set<String> getParentPaths(Set<String> keyPaths) {
+		final Set<String> parentPaths = new HashSet<>();
+		for (String keyPath : keyPaths) {
+			int index = keyPath.indexOf('.');
+			while (index != -1) {
+				parentPaths.add(keyPath.substring(0, index));
+				index = keyPath.indexOf('.', index + 1);
+			}
+		}
+		return parentPaths;
+	}
+	
+	/**
+	 * Reads the elements of an array from the reader, after its
+	 * {@link JsonToken#BEGIN_ARRAY} token was consumed. Objects inside the
+	 * array are represented by their own {@link JsonParser}.
+	 * 
+	 * @param reader the reader to take the tokens from
+	 * @return the array with all elements
+	 */
+	private static Object[] readArray(JsonReader reader) {
+		final List<Object> array = new ArrayList<>();
+		JsonToken token;
+		while ((token = reader.next()) != JsonToken.END_ARRAY) {
+			switch (token) {
+			case BEGIN_OBJECT:
+				final JsonParser parser = new JsonParser();
+				parser.readObject(reader, "");
+				array.add(parser);
+				break;
+			case BEGIN_ARRAY: array.add(readArray(reader)); break;
+			default: array.add(reader.getValue()); break;
+			}
+		}
+		return array.toArray();
+	}
+	
+	/**
+	 * Reads the next value from the reader. Objects are represented by their
+	 * own {@link JsonParser} and arrays by an array of their elements.
+	 * 
+	 * @param reader the reader to take the tokens from
+	 * @return the value
+	 * @throws ParserException      if the document is not valid json
+	 * @throws UncheckedIOException if an I/O exception occurs
+	 */
+	static Object readValue(JsonReader reader) {
+		switch (reader.next()) {
+		case BEGIN_OBJECT:
+			final JsonParser parser = new JsonParser();
+			parser.readObject(reader, "");
+			return parser;
+		case BEGIN_ARRAY: return readArray(reader);
+		case VALUE: return reader.getValue();
+		default: throw new ParserException("Expected a value!");
+		}
+	}
+	
+	/**
+	 * Sets the value to a given key. Values of objects on the path and values
+	 * below the key are removed, because an object in json can't store a value
+	 * at the same time.
+	 * 
+	 * @param key   the path that represents the value
+	 * @param value any object
 	 */
 	@Override
 	protected void setValue(String key, Object value) {
-		if (key == null || !key.contains(".")) {
-			super.setValue(key, value);
-			return;
-		}
-		String[] keys = key.split("\\.");
-		String minKey = key.substring(0, key.lastIndexOf("."));
-		if (containsKey(minKey)) remove(minKey);
-		final List<String> oldKeys = getStructure()
-				.stream()
-				.filter(maxKey -> maxKey.startsWith(key) && maxKey.split("\\.").length - 1 == keys.length)
-				.collect(Collectors.toList());
-		getStructure().removeAll(oldKeys);
+		if (key != null && !(value instanceof Map<?, ?> || value instanceof KeyValueParser<?>)) getTree().detach(key);
 		super.setValue(key, value);
 	}
 	
@@ -179,7 +443,7 @@ public class JsonParser extends KeyValueParser<JsonParser> {
 	 */
 	@Override
 	public String parseOut() {
-		return parseOut(false, 0);
+		return parseOut(false);
 	}
 	
 	/**
@@ -190,77 +454,137 @@ public class JsonParser extends KeyValueParser<JsonParser> {
 	 * @return the output of the parser
 	 */
 	public String parseOut(boolean oneliner) {
-		return parseOut(oneliner, 0);
+		final StringWriter string = new StringWriter();
+		try {
+			parseOut(new JsonWriter(string, oneliner));
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return string.toString();
 	}
 	
 	/**
-	 * Gets the output of the parser. The object structure will be
-	 * converted back to a string.
+	 * Writes the pretty printed output of the parser to a {@link Writer}. The
+	 * output is passed to the writer in chunks of a bounded buffer, so the
+	 * whole document is never held in memory as string. The writer is flushed
+	 * but not closed.
 	 * 
+	 * @param writer the writer to write to
+	 * @throws IOException if an I/O exception occurs
+	 */
+	@Override
+	public void parseOut(Writer writer) throws IOException {
+		parseOut(writer, false);
+	}
+	
+	/**
+	 * Writes the output of the parser to a {@link Writer}. The output is
+	 * passed to the writer in chunks of a bounded buffer, so the whole
+	 * document is never held in memory as string. The writer is flushed but
+	 * not closed.
+	 * 
+	 * @param writer   the writer to write to
 	 * @param oneliner if the output should be given in a single line
-	 * @param offset   the tab offset for inner objects
-	 * @return the output of the parser
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void parseOut(Writer writer, boolean oneliner) throws IOException {
+		parseOut(new JsonWriter(writer, oneliner));
+	}
+	
+	/**
+	 * Writes the pretty printed output of the parser UTF-8 encoded to an
+	 * {@link OutputStream}. The output is encoded in chunks of a bounded
+	 * buffer. The stream is flushed but not closed.
+	 * 
+	 * @param output the output stream to write to
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void parseOut(OutputStream output) throws IOException {
+		parseOut(new JsonWriter(output));
+	}
+	
+	/**
+	 * Writes the pretty printed output of the parser UTF-8 encoded to a
+	 * {@link WritableByteChannel}. The output is encoded in chunks of a
+	 * bounded buffer. The channel is not closed.
+	 * 
+	 * @param channel the channel to write to
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void parseOut(WritableByteChannel channel) throws IOException {
+		parseOut(new JsonWriter(channel));
+	}
+	
+	/**
+	 * Writes the object structure of the parser as json document to a
+	 * {@link JsonWriter} and flushes it.
+	 * 
+	 * @param writer the writer to write the tokens to
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void parseOut(JsonWriter writer) throws IOException {
+		writeDocument(writer);
+		writer.flush();
+	}
+	
+	/**
+	 * Writes the object structure of the parser as object or, if the parser
+	 * contains a root array, as array. The keys are walked once as hierarchy
+	 * with {@link #walkStructure(StructureVisitor)}.
+	 * 
+	 * @param writer the writer to write the tokens to
+	 * @throws IOException if an I/O exception occurs
 	 */
-	private String parseOut(boolean oneliner, int offset) {
-		if (containsKey(null)) return parseOutArray(oneliner, offset, null, getAsArray(null));
-		final StringBuilder string = new StringBuilder();
-		final String TAB = oneliner ? "" : "\t";
-		final String SPACE = oneliner ? "" : " ";
-		final String NEW_LINE = oneliner ? "" : "\n";
-		if (getStructure().isEmpty()) return TAB.repeat(offset) + "{}";
-		int lastLayer = 1;
-		String[] lastkeys = {};
-		string.append(TAB.repeat(offset) + '{' + NEW_LINE);
-		for (String key : getStructure()) {
-			final String[] keys = key.split("\\.");
-			if ((keys.length < lastLayer || !isSamePath(keys, lastkeys, lastLayer - 1)) && string.charAt(string.length() - (oneliner ? 1 : 2)) == ',') string.deleteCharAt(string.length() - (oneliner ? 1 : 2));
-			while (keys.length < lastLayer || !isSamePath(keys, lastkeys, lastLayer - 1)) {
-				string.append(TAB.repeat(--lastLayer + offset) + '}');
-				if (keys.length >= lastLayer && isSamePath(keys, lastkeys, lastLayer - 1)) string.append(',');
-				string.append(NEW_LINE);
+	private void writeDocument(JsonWriter writer) throws IOException {
+		if (containsKey(null)) {
+			writeArray(writer, getValue(null));
+			return;
+		}
+		writer.beginObject();
+		walkStructure(new StructureVisitor() {
+			
+			@Override
+			public void beginObject(String name) throws IOException {
+				writer.name(name).beginObject();
 			}
-			while (keys.length > lastLayer) {
-				string.append(TAB.repeat(lastLayer++ + offset) + '\"' + keys[lastLayer - 2] + "\":" + SPACE + '{' + NEW_LINE);
+			
+			@Override
+			public void endObject() throws IOException {
+				writer.endObject();
 			}
-			final String name = keys[lastLayer - 1];
-			final Object value = getEntries().get(key);
-			final String TABS = TAB.repeat(lastLayer + offset);
-			if (value != null && value.getClass().isArray()) {
-				string.append(parseOutArray(oneliner, offset + lastLayer, name, getAsArray(key)));
-			} else {
-				string.append(TABS + '\"' + name + "\":" + SPACE + ParsingUtils.autoSerializePrimitive(value, true));
+			
+			@Override
+			public void value(String name, Object value) throws IOException {
+				writer.name(name);
+				if (PackedArrays.isArray(value)) writeArray(writer, value);
+				else writer.value(value);
 			}
-			string.append(',' + NEW_LINE);
-			lastkeys = keys;
-		}
-		if (string.charAt(string.length() - (oneliner ? 1 : 2)) == ',') string.deleteCharAt(string.length() - (oneliner ? 1 : 2));
-		while (1 < lastLayer) string.append(TAB.repeat(--lastLayer + offset) + '}' + NEW_LINE);
-		string.append(TAB.repeat(offset) + '}');
-		return string.toString();
+			
+		});
+		writer.endObject();
 	}
 	
 	/**
-	 * Gets the output of a collection in the parser. The collection
-	 * structure will be converted back to a string.
-	 * 
-	 * @param oneliner   if the output should be given in a single line
-	 * @param offset     the tab offset for inner objects
-	 * @param name       the name of the collection
-	 * @param collection the collection to parse out
-	 * @return the collection as string
-	 */
-	private String parseOutArray(boolean oneliner, int offset, String name, Object[] array) {
-		final StringBuilder string = new StringBuilder();
-		final String TAB = oneliner ? "" : "\t";
-		final String SPACE = oneliner ? "" : " ";
-		final String NEW_LINE = oneliner ? "" : "\n";
-		final String TABS = TAB.repeat(offset + 1);
-		if (array.length == 0 && name == null) return TAB.repeat(offset) + "[]";
-		string.append(TAB.repeat(offset) + (name != null ? "\"" + name + "\":" + SPACE + "[" : "[") + (array.length == 0 ? "]" : NEW_LINE));
-		for (Object value : array) {
-			if (value != null && (value.getClass().isArray() || value instanceof Collection<?>)) {
-				final Object[] innerArray = value.getClass().isArray() ? (Object[]) value : ((Collection<?>) value).toArray();
-				string.append(parseOutArray(oneliner, offset + 1, null, innerArray));
+	 * Writes the elements of an array. Packed arrays are written without
+	 * boxing their elements. Inner arrays and collections are written as
+	 * arrays and other parsers as objects.
+	 * 
+	 * @param writer the writer to write the tokens to
+	 * @param array  the object array, packed array or buffer to write
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void writeArray(JsonWriter writer, Object array) throws IOException {
+		if (array instanceof PackedArrays.Buffer) array = ((PackedArrays.Buffer) array).toArray();
+		if (!(array instanceof Object[])) {
+			writePackedArray(writer, PackedArrays.pack(array));
+			return;
+		}
+		writer.beginArray();
+		for (Object value : (Object[]) array) {
+			if (value != null && (value.getClass().isArray() || value instanceof PackedArrays.Bits)) {
+				writeArray(writer, value);
+			} else if (value instanceof Collection<?>) {
+				writeArray(writer, ((Collection<?>) value).toArray());
 			} else if (value != null && value instanceof KeyValueParser<?>) {
 				JsonParser parser;
 				if (value instanceof JsonParser) {
@@ -269,34 +593,38 @@ public class JsonParser extends KeyValueParser<JsonParser> {
 					parser = new JsonParser();
 					((KeyValueParser<?>) value).forEach((objectKey, objectValue) -> parser.set(objectKey, objectValue));
 				}
-				string.append(parser.parseOut(oneliner, offset + 1));
+				parser.writeDocument(writer);
 			} else {
-				string.append(TABS + ParsingUtils.autoSerializePrimitive(value, true));
+				writer.value(value);
 			}
-			string.append(',' + NEW_LINE);
-		}
-		if (array.length != 0) {
-			if (string.charAt(string.length() - (oneliner ? 1 : 2)) == ',') string.deleteCharAt(string.length() - (oneliner ? 1 : 2));
-			string.append(TAB.repeat(offset) + "]");
 		}
-		return string.toString();
+		writer.endArray();
 	}
 	
 	/**
-	 * Checks if two arrays have the same entries until a specific index.
+	 * Writes the elements of a packed array.
 	 * 
-	 * @param keys     the first array
-	 * @param lastkeys the second array
-	 * @param layer    the index until which the arrays have to be checked
-	 * @return if the arrays have the same entries until a specific point
+	 * @param writer the writer to write the tokens to
+	 * @param array  the packed array to write
+	 * @throws IOException if an I/O exception occurs
 	 */
-	private boolean isSamePath(String[] keys, String[] lastkeys, int layer) {
-		for (int i = 0; i < layer && i < keys.length - 1 && i < lastkeys.length - 1; i++) {
-			if (!keys[i].equals(lastkeys[i])) return false;
+	private static void writePackedArray(JsonWriter writer, Object array) throws IOException {
+		writer.beginArray();
+		if (array instanceof int[]) {
+			for (int value : (int[]) array) writer.value(value);
+		} else if (array instanceof long[]) {
+			for (long value : (long[]) array) writer.value(value);
+		} else if (array instanceof double[]) {
+			for (double value : (double[]) array) writer.value(value);
+		} else if (array instanceof PackedArrays.Bits) {
+			final PackedArrays.Bits bits = (PackedArrays.Bits) array;
+			for (int i = 0; i < bits.length(); i++) writer.value(bits.get(i));
+		} else {
+			for (Object value : (Object[]) array) writer.value(value);
 		}
-		return true;
+		writer.endArray();
 	}
-
+	
 	/**
 	 * {@inheritDoc}
 	 */
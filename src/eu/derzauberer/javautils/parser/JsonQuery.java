@@ -0,0 +1,255 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.derzauberer.javautils.parser.JsonReader.JsonToken;
+
+/**
+ * A compiled key path, which is evaluated directly on a raw json document
+ * without parsing it into a {@link JsonParser}. The path uses the dotted
+ * syntax of {@link KeyValueParser#get(String)}. Array elements are selected
+ * by their index as segment or in brackets and the segment * matches all
+ * members of an object or all elements of an array. The document is scanned
+ * once and every member, which is not on the path, is skipped without
+ * decoding it. Only the matching values are read, objects are returned as
+ * {@link JsonParser} and arrays as array of their elements.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * JsonQuery query = JsonQuery.compile("orders[0].items.*.id");
+ * Object firstId = query.get(bytes);
+ * List&lt;Object&gt; ids = query.getAll(bytes);
+ * </pre>
+ *
+ * @see {@link JsonReader}
+ */
+public class JsonQuery {
+
+	private static final String WILDCARD = "*";
+
+	private final String path;
+	private final String[] segments;
+	private final int[] indices;
+
+	/**
+	 * Creates a new query from the segments of the path.
+	 *
+	 * @param path     the original path
+	 * @param segments the segments of the path
+	 */
+	private JsonQuery(String path, String[] segments) {
+		this.path = path;
+		this.segments = segments;
+		this.indices = new int[segments.length];
+		for (int i = 0; i < segments.length; i++) {
+			indices[i] = toIndex(segments[i]);
+		}
+	}
+
+	/**
+	 * Compiles a key path into a query. The segments of the path are
+	 * separated by dots, array indices can also be written in brackets like
+	 * <code>items[0].id</code> and the segment * matches every member or
+	 * element. An empty path selects the root element.
+	 *
+	 * @param path the key path to compile
+	 * @return the compiled query
+	 * @throws IllegalArgumentException if the path contains empty segments
+	 */
+	public static JsonQuery compile(String path) {
+		String normalized = path.replace("[", ".").replace("]", "");
+		if (normalized.startsWith(".")) normalized = normalized.substring(1);
+		if (normalized.isEmpty()) return new JsonQuery(path, new String[0]);
+		final String[] segments = normalized.split("\\.", -1);
+		for (String segment : segments) {
+			if (segment.isEmpty()) throw new IllegalArgumentException("The path '" + path + "' contains an empty segment!");
+		}
+		return new JsonQuery(path, segments);
+	}
+
+	/**
+	 * Returns the first value, which matches the path, from the json
+	 * document. The scan stops at the first match, so the rest of the
+	 * document is not validated.
+	 *
+	 * @param json the json document
+	 * @return the first matching value or null if no value matches
+	 * @throws ParserException if the document is not valid json
+	 */
+	public Object get(String json) {
+		return get(new JsonReader(json));
+	}
+
+	/**
+	 * Returns the first value, which matches the path, from the UTF-8
+	 * encoded json document. The scan stops at the first match, so the rest
+	 * of the document is not validated.
+	 *
+	 * @param json the UTF-8 encoded json document
+	 * @return the first matching value or null if no value matches
+	 * @throws ParserException if the document is not valid json
+	 */
+	public Object get(byte[] json) {
+		return get(new JsonReader(json));
+	}
+
+	/**
+	 * Returns the first value, which matches the path, from the remaining
+	 * tokens of the reader. The reader stops after the first match.
+	 *
+	 * @param reader the reader to take the tokens from
+	 * @return the first matching value or null if no value matches
+	 * @throws ParserException      if the document is not valid json
+	 * @throws UncheckedIOException if an I/O exception occurs
+	 */
+	public Object get(JsonReader reader) {
+		final List<Object> results = new ArrayList<>(1);
+		select(reader, 0, results, false);
+		return results.isEmpty() ? null : results.get(0);
+	}
+
+	/**
+	 * Returns all values, which match the path, from the json document in
+	 * the order of the document.
+	 *
+	 * @param json the json document
+	 * @return the matching values
+	 * @throws ParserException if the document is not valid json
+	 */
+	public List<Object> getAll(String json) {
+		return getAll(new JsonReader(json));
+	}
+
+	/**
+	 * Returns all values, which match the path, from the UTF-8 encoded json
+	 * document in the order of the document.
+	 *
+	 * @param json the UTF-8 encoded json document
+	 * @return the matching values
+	 * @throws ParserException if the document is not valid json
+	 */
+	public List<Object> getAll(byte[] json) {
+		return getAll(new JsonReader(json));
+	}
+
+	/**
+	 * Returns all values, which match the path, from the remaining tokens of
+	 * the reader in the order of the document.
+	 *
+	 * @param reader the reader to take the tokens from
+	 * @return the matching values
+	 * @throws ParserException      if the document is not valid json
+	 * @throws UncheckedIOException if an I/O exception occurs
+	 */
+	public List<Object> getAll(JsonReader reader) {
+		final List<Object> results = new ArrayList<>();
+		if (reader.peek() != JsonToken.END_DOCUMENT) select(reader, 0, results, true);
+		if (reader.next() != JsonToken.END_DOCUMENT) throw new ParserException("Unexpected content after the root element!");
+		return results;
+	}
+
+	/**
+	 * Checks if a value matches the path in the json document.
+	 *
+	 * @param json the json document
+	 * @return if a value matches the path
+	 * @throws ParserException if the document is not valid json
+	 */
+	public boolean isPresent(String json) {
+		return get(json) != null;
+	}
+
+	/**
+	 * Checks if a value matches the path in the UTF-8 encoded json document.
+	 *
+	 * @param json the UTF-8 encoded json document
+	 * @return if a value matches the path
+	 * @throws ParserException if the document is not valid json
+	 */
+	public boolean isPresent(byte[] json) {
+		return get(json) != null;
+	}
+
+	/**
+	 * Returns the key path of the query.
+	 *
+	 * @return the key path of the query
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return path;
+	}
+
+	/**
+	 * Matches the next value of the reader against the segments of the path
+	 * starting at the given segment. Values, which are not on the path, are
+	 * skipped.
+	 *
+	 * @param reader  the reader to take the tokens from
+	 * @param segment the index of the segment to match
+	 * @param results the list to add the matching values to
+	 * @param all     if all matches should be collected
+	 * @return if the search is finished
+	 */
+	private boolean select(JsonReader reader, int segment, List<Object> results, boolean all) {
+		if (segment == segments.length) {
+			results.add(JsonParser.readValue(reader));
+			return !all;
+		}
+		final boolean wildcard = segments[segment].equals(WILDCARD);
+		switch (reader.peek()) {
+		case BEGIN_OBJECT:
+			reader.next();
+			while (reader.next() != JsonToken.END_OBJECT) {
+				if (wildcard || segments[segment].equals(reader.getName())) {
+					if (select(reader, segment + 1, results, all)) return true;
+				} else {
+					reader.skipValue();
+				}
+			}
+			return false;
+		case BEGIN_ARRAY:
+			reader.next();
+			for (int i = 0; reader.peek() != JsonToken.END_ARRAY; i++) {
+				if (wildcard || i == indices[segment]) {
+					if (select(reader, segment + 1, results, all)) return true;
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.next();
+			return false;
+		default:
+			reader.skipValue();
+			return false;
+		}
+	}
+
+	/**
+	 * Converts a segment into an array index.
+	 *
+	 * @param segment the segment to convert
+	 * @return the array index or -1 if the segment is not an index
+	 */
+	private static int toIndex(String segment) {
+		if (segment.length() > 9) return -1;
+		int index = 0;
+		for (int i = 0; i < segment.length(); i++) {
+			final char character = segment.charAt(i);
+			if (character < '0' || character > '9') return -1;
+			index = index * 10 + (character - '0');
+		}
+		return index;
+	}
+
+}
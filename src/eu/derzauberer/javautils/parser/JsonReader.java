@@ -0,0 +1,397 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads a json document token by token from a {@link Reader}, an
+ * {@link InputStream} or UTF-8 encoded bytes. Streams are read in chunks of a
+ * bounded buffer, so the memory usage of the reader depends on the buffer size
+ * and the size of the single names and values, but not on the size of the
+ * whole document.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * JsonReader reader = new JsonReader(inputStream);
+ * JsonToken token;
+ * while ((token = reader.next()) != JsonToken.END_DOCUMENT) {
+ *     if (token == JsonToken.NAME) System.out.println(reader.getName());
+ *     if (token == JsonToken.VALUE) System.out.println(reader.getValue());
+ * }
+ * </pre>
+ *
+ * @see {@link JsonParser}
+ */
+public class JsonReader implements Closeable {
+
+	/**
+	 * Represents the type of tokens in a json document.
+	 */
+	public enum JsonToken {
+		BEGIN_OBJECT,
+		END_OBJECT,
+		BEGIN_ARRAY,
+		END_ARRAY,
+		NAME,
+		VALUE,
+		END_DOCUMENT
+	}
+
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int NONEMPTY_OBJECT = 3;
+	private static final int DANGLING_NAME = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	private final JsonSource source;
+	private int[] stack = new int[32];
+	private int depth = 1;
+	private JsonToken peeked;
+	private JsonToken token;
+	private String name;
+	private Object value;
+	private boolean skipping;
+
+	/**
+	 * Creates a new reader, which reads the json document from a string.
+	 *
+	 * @param input the json document
+	 */
+	public JsonReader(String input) {
+		this(new StringReader(input), Math.max(1, Math.min(input.length(), DEFAULT_BUFFER_SIZE)));
+	}
+
+	/**
+	 * Creates a new reader, which reads the UTF-8 encoded json document from
+	 * a byte array. The structure is scanned on the bytes, only names and
+	 * values are decoded into strings.
+	 *
+	 * @param input the UTF-8 encoded json document
+	 */
+	public JsonReader(byte[] input) {
+		this(ByteBuffer.wrap(input));
+	}
+
+	/**
+	 * Creates a new reader, which reads the UTF-8 encoded json document from
+	 * a range of a byte array. The structure is scanned on the bytes, only
+	 * names and values are decoded into strings.
+	 *
+	 * @param input  the byte array, which contains the json document
+	 * @param offset the index of the first byte of the document
+	 * @param length the amount of bytes of the document
+	 * @throws IndexOutOfBoundsException if the range is outside of the array
+	 */
+	public JsonReader(byte[] input, int offset, int length) {
+		this(ByteBuffer.wrap(input, offset, length));
+	}
+
+	/**
+	 * Creates a new reader, which reads the UTF-8 encoded json document
+	 * between the position and the limit of a {@link ByteBuffer}. Heap
+	 * buffers, slices and direct buffers are supported and the position of
+	 * the buffer will not be changed. The structure is scanned on the bytes,
+	 * only names and values are decoded into strings.
+	 *
+	 * @param input the buffer, which contains the json document
+	 */
+	public JsonReader(ByteBuffer input) {
+		this(new JsonSource.ByteSource(input));
+	}
+
+	/**
+	 * Creates a new reader, which maps the UTF-8 encoded json file of the
+	 * channel into memory and reads the document directly from the mapped
+	 * bytes. The file content stays in the page cache of the operating system
+	 * and only names and values are decoded into strings on the heap. Closing
+	 * the reader will close the channel.
+	 *
+	 * @param channel the channel of the file to read
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public JsonReader(FileChannel channel) throws IOException {
+		this(new JsonSource.ByteSource(channel));
+	}
+
+	/**
+	 * Creates a new reader, which reads the json document from an UTF-8
+	 * encoded {@link InputStream}. The stream is read in chunks and the
+	 * structure is scanned on the bytes, only names and values are decoded
+	 * into strings.
+	 *
+	 * @param input the input stream to read from
+	 */
+	public JsonReader(InputStream input) {
+		this(new JsonSource.ByteSource(input, DEFAULT_BUFFER_SIZE));
+	}
+
+	/**
+	 * Creates a new reader, which reads the json document from a
+	 * {@link Reader}.
+	 *
+	 * @param reader the reader to read from
+	 */
+	public JsonReader(Reader reader) {
+		this(reader, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new reader, which reads the json document from a
+	 * {@link Reader} in chunks of the given buffer size.
+	 *
+	 * @param reader     the reader to read from
+	 * @param bufferSize the amount of characters, which are read at once
+	 * @throws IllegalArgumentException if the buffer size is smaller than 1
+	 */
+	public JsonReader(Reader reader, int bufferSize) {
+		this(new JsonSource.CharSource(reader, checkBufferSize(bufferSize)));
+	}
+
+	/**
+	 * Creates a new reader, which reads the json document from a source.
+	 *
+	 * @param source the source to read from
+	 */
+	private JsonReader(JsonSource source) {
+		this.source = source;
+		stack[0] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Returns the type of the next token without consuming it.
+	 *
+	 * @return the type of the next token
+	 * @throws ParserException      if the document is not valid json
+	 * @throws UncheckedIOException if an I/O exception occurs
+	 */
+	public JsonToken peek() {
+		if (peeked == null) peeked = readToken();
+		return peeked;
+	}
+
+	/**
+	 * Consumes the next token and returns its type. The name of a
+	 * {@link JsonToken#NAME} token is available with {@link #getName()}
+	 * and the value of a {@link JsonToken#VALUE} token with
+	 * {@link #getValue()} afterwards.
+	 *
+	 * @return the type of the consumed token
+	 * @throws ParserException      if the document is not valid json
+	 * @throws UncheckedIOException if an I/O exception occurs
+	 */
+	public JsonToken next() {
+		token = peek();
+		peeked = null;
+		return token;
+	}
+
+	/**
+	 * Returns the name of the last consumed {@link JsonToken#NAME} token.
+	 *
+	 * @return the name of the last consumed token
+	 * @throws IllegalStateException if the last consumed token is not a name
+	 */
+	public String getName() {
+		if (token != JsonToken.NAME) throw new IllegalStateException("The last token was " + token + " and not " + JsonToken.NAME + "!");
+		return name;
+	}
+
+	/**
+	 * Returns the value of the last consumed {@link JsonToken#VALUE} token.
+	 * Quoted values are returned as {@link String}, other values are
+	 * converted with {@link ParsingUtils#autoDeserializePrimitive(String)}
+	 * and the literal null is returned as null.
+	 *
+	 * @return the value of the last consumed token
+	 * @throws IllegalStateException if the last consumed token is not a value
+	 */
+	public Object getValue() {
+		if (token != JsonToken.VALUE) throw new IllegalStateException("The last token was " + token + " and not " + JsonToken.VALUE + "!");
+		return value;
+	}
+
+	/**
+	 * Skips the next value including all nested objects and arrays. If the
+	 * next token is a name, the name and its value are skipped. Skipped names
+	 * and strings are only scanned for their end and skipped literals are not
+	 * converted, so no strings or values are created for the skipped part of
+	 * the document.
+	 *
+	 * @throws IllegalStateException if the next token is the end of an
+	 *                               object, an array or the document
+	 * @throws ParserException       if the document is not valid json
+	 * @throws UncheckedIOException  if an I/O exception occurs
+	 */
+	public void skipValue() {
+		skipping = true;
+		try {
+			final JsonToken next = peek();
+			if (next == JsonToken.END_OBJECT || next == JsonToken.END_ARRAY || next == JsonToken.END_DOCUMENT) {
+				throw new IllegalStateException("The next token is " + next + " and not a value!");
+			}
+			int level = 0;
+			JsonToken token;
+			do {
+				token = next();
+				if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) level++;
+				else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) level--;
+			} while (level > 0 || token == JsonToken.NAME);
+		} finally {
+			skipping = false;
+			name = null;
+			value = null;
+		}
+	}
+
+	/**
+	 * Returns the current nesting depth of objects and arrays. The depth
+	 * outside of the root element is 0.
+	 *
+	 * @return the current nesting depth
+	 */
+	public int getDepth() {
+		return depth - 1;
+	}
+
+	/**
+	 * Closes the underlying reader.
+	 *
+	 * @throws IOException if an I/O exception occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		source.close();
+	}
+
+	/**
+	 * Reads the next token from the input and updates the state of the
+	 * reader.
+	 *
+	 * @return the type of the read token
+	 */
+	private JsonToken readToken() {
+		final int context = stack[depth - 1];
+		int character = source.nextNonWhitespace();
+		switch (context) {
+		case EMPTY_DOCUMENT:
+			if (character == -1) return JsonToken.END_DOCUMENT;
+			stack[depth - 1] = NONEMPTY_DOCUMENT;
+			return readValue(character);
+		case NONEMPTY_DOCUMENT:
+			if (character == -1) return JsonToken.END_DOCUMENT;
+			throw source.syntaxError("Unexpected character '" + (char) character + "' after the root element");
+		case EMPTY_OBJECT:
+		case NONEMPTY_OBJECT:
+			if (character == '}') {
+				depth--;
+				return JsonToken.END_OBJECT;
+			}
+			if (context == NONEMPTY_OBJECT) {
+				if (character != ',') throw source.syntaxError("Expected ',' or '}'");
+				character = source.nextNonWhitespace();
+			}
+			if (character != '"') throw source.syntaxError("Expected a name");
+			if (skipping) source.skipString();
+			else name = source.readString();
+			stack[depth - 1] = DANGLING_NAME;
+			return JsonToken.NAME;
+		case DANGLING_NAME:
+			if (character != ':') throw source.syntaxError("Expected ':'");
+			stack[depth - 1] = NONEMPTY_OBJECT;
+			return readValue(source.nextNonWhitespace());
+		case EMPTY_ARRAY:
+		case NONEMPTY_ARRAY:
+			if (character == ']') {
+				depth--;
+				return JsonToken.END_ARRAY;
+			}
+			if (context == NONEMPTY_ARRAY) {
+				if (character != ',') throw source.syntaxError("Expected ',' or ']'");
+				character = source.nextNonWhitespace();
+			}
+			stack[depth - 1] = NONEMPTY_ARRAY;
+			return readValue(character);
+		default:
+			throw new IllegalStateException("Unknown reader state " + context + "!");
+		}
+	}
+
+	/**
+	 * Reads a value, which starts with the given character.
+	 *
+	 * @param character the first character of the value
+	 * @return the type of the read token
+	 */
+	private JsonToken readValue(int character) {
+		switch (character) {
+		case -1:
+			throw source.syntaxError("Unexpected end of document");
+		case '{':
+			push(EMPTY_OBJECT);
+			return JsonToken.BEGIN_OBJECT;
+		case '[':
+			push(EMPTY_ARRAY);
+			return JsonToken.BEGIN_ARRAY;
+		case '"':
+			if (skipping) source.skipString();
+			else value = source.readString();
+			return JsonToken.VALUE;
+		case '}':
+		case ']':
+		case ',':
+		case ':':
+			throw source.syntaxError("Unexpected character '" + (char) character + "'");
+		default:
+			if (skipping) source.skipLiteral();
+			else value = readLiteral(character);
+			return JsonToken.VALUE;
+		}
+	}
+
+	/**
+	 * Reads an unquoted literal like numbers, booleans and null.
+	 *
+	 * @param first the first character of the literal
+	 * @return the literal converted into its value
+	 */
+	private Object readLiteral(int first) {
+		final String literal = source.readLiteral(first);
+		if (literal.equals("null")) return null;
+		return ParsingUtils.autoDeserializePrimitive(literal);
+	}
+
+	/**
+	 * Pushes a new context on the stack of nested objects and arrays.
+	 *
+	 * @param context the new context
+	 */
+	private void push(int context) {
+		if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+		stack[depth++] = context;
+	}
+
+	/**
+	 * Checks if the buffer size is valid.
+	 *
+	 * @param bufferSize the buffer size to check
+	 * @return the buffer size
+	 * @throws IllegalArgumentException if the buffer size is smaller than 1
+	 */
+	private static int checkBufferSize(int bufferSize) {
+		if (bufferSize < 1) throw new IllegalArgumentException("The buffer size has to be at least 1!");
+		return bufferSize;
+	}
+
+}
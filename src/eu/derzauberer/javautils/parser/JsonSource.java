@@ -0,0 +1,492 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Provides the characters of a json document to the {@link JsonReader}. The
+ * structure of the document is scanned directly on the source, only names and
+ * values are converted into strings.
+ */
+abstract class JsonSource {
+
+	protected final StringBuilder string = new StringBuilder();
+
+	/**
+	 * Returns the next character, which is not a whitespace, and consumes
+	 * it.
+	 *
+	 * @return the next character or -1 at the end of the input
+	 */
+	abstract int nextNonWhitespace();
+
+	/**
+	 * Consumes and returns the next character.
+	 *
+	 * @return the next character or -1 at the end of the input
+	 */
+	abstract int read();
+
+	/**
+	 * Reads a quoted string after the opening quotation mark and resolves
+	 * its escape codes.
+	 *
+	 * @return the content of the string
+	 */
+	abstract String readString();
+
+	/**
+	 * Reads an unquoted literal like numbers, booleans and null.
+	 *
+	 * @param first the first character of the literal
+	 * @return the literal as string
+	 */
+	abstract String readLiteral(int first);
+
+	/**
+	 * Skips a quoted string after the opening quotation mark without
+	 * decoding it.
+	 */
+	abstract void skipString();
+
+	/**
+	 * Skips an unquoted literal without decoding it.
+	 */
+	abstract void skipLiteral();
+
+	/**
+	 * Returns the position after the last consumed character.
+	 *
+	 * @return the position after the last consumed character
+	 */
+	abstract long getPosition();
+
+	/**
+	 * Closes the underlying input.
+	 *
+	 * @throws IOException if an I/O exception occurs
+	 */
+	abstract void close() throws IOException;
+
+	/**
+	 * Reads an escape code after the backslash.
+	 *
+	 * @return the character represented by the escape code
+	 */
+	protected char readEscapeCode() {
+		final int character = read();
+		switch (character) {
+		case 'b': return '\b';
+		case 'f': return '\f';
+		case 'n': return '\n';
+		case 'r': return '\r';
+		case 't': return '\t';
+		case 'u':
+			int code = 0;
+			for (int i = 0; i < 4; i++) {
+				final int digit = Character.digit(read(), 16);
+				if (digit == -1) throw syntaxError("Invalid unicode escape code");
+				code = (code << 4) | digit;
+			}
+			return (char) code;
+		case -1: throw syntaxError("Unterminated escape code");
+		default: return (char) character;
+		}
+	}
+
+	/**
+	 * Creates a new {@link ParserException} with the position of the last
+	 * read character.
+	 *
+	 * @param message the description of the error
+	 * @return the new exception
+	 */
+	protected ParserException syntaxError(String message) {
+		return new ParserException(message + " at position " + (getPosition() - 1) + "!");
+	}
+
+	/**
+	 * Checks if the character ends an unquoted literal.
+	 *
+	 * @param character the character to check
+	 * @return if the character ends an unquoted literal
+	 */
+	protected static boolean isDelimiter(int character) {
+		return character == ',' || character == '}' || character == ']' || character == ':' ||
+				character == ' ' || character == '\t' || character == '\n' || character == '\r';
+	}
+
+	/**
+	 * Checks if the character is a json whitespace.
+	 *
+	 * @param character the character to check
+	 * @return if the character is a whitespace
+	 */
+	protected static boolean isWhitespace(int character) {
+		return character == ' ' || character == '\t' || character == '\n' || character == '\r';
+	}
+
+	/**
+	 * Reads the characters from a {@link Reader} in chunks of a bounded
+	 * buffer.
+	 */
+	static class CharSource extends JsonSource {
+
+		private final Reader reader;
+		private final char[] buffer;
+		private int position;
+		private int limit;
+		private long offset;
+
+		/**
+		 * Creates a new source, which reads the characters from a
+		 * {@link Reader} in chunks of the given buffer size.
+		 *
+		 * @param reader     the reader to read from
+		 * @param bufferSize the amount of characters, which are read at once
+		 */
+		CharSource(Reader reader, int bufferSize) {
+			this.reader = reader;
+			this.buffer = new char[bufferSize];
+		}
+
+		@Override
+		int nextNonWhitespace() {
+			while (position < limit || fill()) {
+				final char character = buffer[position++];
+				if (!isWhitespace(character)) return character;
+			}
+			return -1;
+		}
+
+		@Override
+		int read() {
+			if (position >= limit && !fill()) return -1;
+			return buffer[position++];
+		}
+
+		@Override
+		String readString() {
+			string.setLength(0);
+			while (true) {
+				int start = position;
+				while (position < limit) {
+					final char character = buffer[position];
+					if (character == '"') {
+						string.append(buffer, start, position++ - start);
+						return string.toString();
+					} else if (character == '\\') {
+						string.append(buffer, start, position++ - start);
+						string.append(readEscapeCode());
+						start = position;
+					} else {
+						position++;
+					}
+				}
+				string.append(buffer, start, position - start);
+				if (!fill()) throw syntaxError("Unterminated string");
+			}
+		}
+
+		@Override
+		String readLiteral(int first) {
+			string.setLength(0);
+			string.append((char) first);
+			while (true) {
+				final int start = position;
+				while (position < limit && !isDelimiter(buffer[position])) position++;
+				string.append(buffer, start, position - start);
+				if (position < limit || !fill()) return string.toString();
+			}
+		}
+
+		@Override
+		void skipString() {
+			while (position < limit || fill()) {
+				final char character = buffer[position++];
+				if (character == '"') return;
+				if (character == '\\' && read() == -1) break;
+			}
+			throw syntaxError("Unterminated string");
+		}
+
+		@Override
+		void skipLiteral() {
+			do {
+				while (position < limit && !isDelimiter(buffer[position])) position++;
+			} while (position >= limit && fill());
+		}
+
+		@Override
+		long getPosition() {
+			return offset + position;
+		}
+
+		@Override
+		void close() throws IOException {
+			reader.close();
+		}
+
+		/**
+		 * Reads the next chunk from the reader into the buffer.
+		 *
+		 * @return if new characters were read
+		 */
+		private boolean fill() {
+			offset += limit;
+			position = 0;
+			limit = 0;
+			try {
+				int count;
+				while ((count = reader.read(buffer, 0, buffer.length)) == 0);
+				if (count == -1) return false;
+				limit = count;
+				return true;
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+	}
+
+	/**
+	 * Reads UTF-8 encoded bytes from a {@link ByteBuffer}, from an
+	 * {@link InputStream} in chunks of a bounded buffer or from a memory
+	 * mapped {@link FileChannel}. The structure is scanned on the bytes, only
+	 * names and values are decoded into strings.
+	 */
+	static class ByteSource extends JsonSource {
+
+		private static final int MAPPING_SIZE = 1 << 30;
+
+		private final InputStream input;
+		private final FileChannel channel;
+		private final long size;
+		private ByteBuffer buffer;
+		private byte[] bytes = new byte[64];
+		private int byteCount;
+		private int position;
+		private int limit;
+		private long offset;
+
+		/**
+		 * Creates a new source, which reads the bytes between the position
+		 * and the limit of the buffer. The position of the buffer will not
+		 * be changed.
+		 *
+		 * @param buffer the buffer to read from
+		 */
+		ByteSource(ByteBuffer buffer) {
+			this.input = null;
+			this.channel = null;
+			this.size = buffer.remaining();
+			this.buffer = buffer.slice();
+			this.limit = this.buffer.limit();
+		}
+
+		/**
+		 * Creates a new source, which reads the bytes from an
+		 * {@link InputStream} in chunks of the given buffer size.
+		 *
+		 * @param input      the input stream to read from
+		 * @param bufferSize the amount of bytes, which are read at once
+		 */
+		ByteSource(InputStream input, int bufferSize) {
+			this.input = input;
+			this.channel = null;
+			this.size = -1;
+			this.buffer = ByteBuffer.allocate(bufferSize);
+		}
+
+		/**
+		 * Creates a new source, which maps the whole file of the channel
+		 * into memory. Large files are mapped in consecutive windows, so
+		 * the bytes stay in the page cache of the operating system instead
+		 * of the heap.
+		 *
+		 * @param channel the channel of the file to read
+		 * @throws IOException if an I/O exception occurs
+		 */
+		ByteSource(FileChannel channel) throws IOException {
+			this.input = null;
+			this.channel = channel;
+			this.size = channel.size();
+			this.buffer = ByteBuffer.allocate(0);
+		}
+
+		@Override
+		int nextNonWhitespace() {
+			while (position < limit || fill()) {
+				final byte character = buffer.get(position++);
+				if (!isWhitespace(character)) return character & 0xFF;
+			}
+			return -1;
+		}
+
+		@Override
+		int read() {
+			if (position >= limit && !fill()) return -1;
+			return buffer.get(position++) & 0xFF;
+		}
+
+		@Override
+		String readString() {
+			string.setLength(0);
+			byteCount = 0;
+			int start = position;
+			boolean contiguous = true;
+			while (true) {
+				while (position < limit) {
+					final byte character = buffer.get(position);
+					if (character == '"') {
+						if (contiguous && string.length() == 0) return decode(start, position++ - start);
+						appendBytes(start, position++);
+						decodeBytes();
+						return string.toString();
+					} else if (character == '\\') {
+						appendBytes(start, position++);
+						decodeBytes();
+						string.append(readEscapeCode());
+						start = position;
+					} else {
+						position++;
+					}
+				}
+				appendBytes(start, position);
+				contiguous = false;
+				if (!fill()) throw syntaxError("Unterminated string");
+				start = position;
+			}
+		}
+
+		@Override
+		String readLiteral(int first) {
+			final int start = position - 1;
+			while (position < limit && !isDelimiter(buffer.get(position))) position++;
+			if (position < limit || (input == null && channel == null)) return decode(start, position - start);
+			byteCount = 0;
+			appendBytes(start, position);
+			while (fill()) {
+				final int chunkStart = position;
+				while (position < limit && !isDelimiter(buffer.get(position))) position++;
+				appendBytes(chunkStart, position);
+				if (position < limit) break;
+			}
+			return new String(bytes, 0, byteCount, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		void skipString() {
+			if (buffer.hasArray()) {
+				final byte[] array = buffer.array();
+				final int arrayOffset = buffer.arrayOffset();
+				for (int i = position; i < limit; i++) {
+					final byte character = array[arrayOffset + i];
+					if (character == '\\') break;
+					if (character == '"') {
+						position = i + 1;
+						return;
+					}
+				}
+			}
+			while (position < limit || fill()) {
+				final byte character = buffer.get(position++);
+				if (character == '"') return;
+				if (character == '\\' && read() == -1) break;
+			}
+			throw syntaxError("Unterminated string");
+		}
+
+		@Override
+		void skipLiteral() {
+			do {
+				while (position < limit && !isDelimiter(buffer.get(position))) position++;
+			} while (position >= limit && fill());
+		}
+
+		@Override
+		long getPosition() {
+			return offset + position;
+		}
+
+		@Override
+		void close() throws IOException {
+			if (input != null) input.close();
+			if (channel != null) channel.close();
+		}
+
+		/**
+		 * Decodes a range of the buffer into a string.
+		 *
+		 * @param start  the index of the first byte
+		 * @param length the amount of bytes
+		 * @return the decoded string
+		 */
+		private String decode(int start, int length) {
+			if (buffer.hasArray()) return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+			byteCount = 0;
+			appendBytes(start, start + length);
+			return new String(bytes, 0, byteCount, StandardCharsets.UTF_8);
+		}
+
+		/**
+		 * Copies a range of the buffer to the pending bytes, which are not
+		 * decoded yet.
+		 *
+		 * @param start the index of the first byte
+		 * @param end   the index after the last byte
+		 */
+		private void appendBytes(int start, int end) {
+			final int length = end - start;
+			if (byteCount + length > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + length));
+			buffer.get(start, bytes, byteCount, length);
+			byteCount += length;
+		}
+
+		/**
+		 * Decodes the pending bytes and appends them to the string.
+		 */
+		private void decodeBytes() {
+			if (byteCount == 0) return;
+			string.append(new String(bytes, 0, byteCount, StandardCharsets.UTF_8));
+			byteCount = 0;
+		}
+
+		/**
+		 * Reads the next chunk from the input stream into the buffer or maps
+		 * the next window of the file.
+		 *
+		 * @return if new bytes were read
+		 */
+		private boolean fill() {
+			if (input == null && channel == null) return false;
+			offset += limit;
+			position = 0;
+			limit = 0;
+			try {
+				if (channel != null) {
+					if (offset >= size) return false;
+					buffer = channel.map(MapMode.READ_ONLY, offset, Math.min(size - offset, MAPPING_SIZE));
+					limit = buffer.limit();
+					return true;
+				}
+				int count;
+				while ((count = input.read(buffer.array(), 0, buffer.capacity())) == 0);
+				if (count == -1) return false;
+				limit = count;
+				return true;
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,500 @@
+package eu.derzauberer.javautils.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Stores the structure of a json document as compact int array, which is
+ * called tape. The document is scanned once to record the type and the
+ * offsets of every object, array, name and value. Names and values are only
+ * decoded, when they are requested by their key.<br>
+ * <br>
+ * Each token takes three ints on the tape. The first int contains the type in
+ * the lower bits and the amount of members or elements of an object or array
+ * in the upper bits. The second int is the start offset in the text. The third
+ * int is the end offset in the text for names and values and the tape index
+ * after the last token of an object or array.
+ */
+final class JsonTape {
+
+	static final int OBJECT = 1;
+	static final int ARRAY = 2;
+	static final int NAME = 3;
+	static final int STRING = 4;
+	static final int LITERAL = 5;
+
+	private static final int TYPE_MASK = 0x7;
+	private static final int ESCAPED = 0x8;
+	private static final int COUNT_SHIFT = 4;
+
+	private static final int STATE_VALUE = 0;
+	private static final int STATE_VALUE_OR_END = 1;
+	private static final int STATE_NAME = 2;
+	private static final int STATE_NAME_OR_END = 3;
+	private static final int STATE_COLON = 4;
+	private static final int STATE_COMMA_OR_END = 5;
+	private static final int STATE_DONE = 6;
+
+	private final byte[] bytes;
+	private final String string;
+	private final int end;
+	private int[] tape = new int[48];
+	private int size;
+
+	/**
+	 * Scans the UTF-8 encoded json document in the range of the byte array.
+	 * The array will be referenced by the tape and must not be changed.
+	 *
+	 * @param bytes  the byte array, which contains the json document
+	 * @param offset the index of the first byte of the document
+	 * @param length the amount of bytes of the document
+	 * @throws ParserException if the document is not valid json
+	 */
+	JsonTape(byte[] bytes, int offset, int length) {
+		this.bytes = bytes;
+		this.string = null;
+		this.end = offset + length;
+		scan(offset);
+	}
+
+	/**
+	 * Scans the json document in the string.
+	 *
+	 * @param string the json document
+	 * @throws ParserException if the document is not valid json
+	 */
+	JsonTape(String string) {
+		this.bytes = null;
+		this.string = string;
+		this.end = string.length();
+		scan(0);
+	}
+
+	/**
+	 * Checks if the tape contains no tokens, which means that the document
+	 * was empty.
+	 *
+	 * @return if the document was empty
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the type of the token at the tape index.
+	 *
+	 * @param index the tape index of the token
+	 * @return the type of the token
+	 */
+	int getType(int index) {
+		return tape[index] & TYPE_MASK;
+	}
+
+	/**
+	 * Finds the value, which is represented by the key. The key null
+	 * represents the root array. Names, which contain dots, are matched as
+	 * well.
+	 *
+	 * @param key the path that represents the value
+	 * @return the tape index of the value or -1 if there is no value
+	 */
+	int find(String key) {
+		if (size == 0) return -1;
+		if (key == null) return getType(0) == ARRAY ? 0 : -1;
+		if (getType(0) != OBJECT) return -1;
+		return find(0, key, 0);
+	}
+
+	/**
+	 * Checks if the value at the tape index is the literal null.
+	 *
+	 * @param index the tape index of the value
+	 * @return if the value is null
+	 */
+	boolean isNull(int index) {
+		return getType(index) == LITERAL && tape[index + 2] - tape[index + 1] == 4 && regionEquals(tape[index + 1], "null");
+	}
+
+	/**
+	 * Checks if the object at the tape index contains at least one value in
+	 * itself or in one of its inner objects.
+	 *
+	 * @param index the tape index of the object
+	 * @return if the object contains a value
+	 */
+	boolean hasValues(int index) {
+		for (int i = index + 3; i < tape[index + 2]; i += 3) {
+			final int type = getType(i);
+			if (type != OBJECT && type != NAME) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Decodes the value at the tape index. Objects are returned as
+	 * {@link JsonParser}, arrays as object array with {@link JsonParser}
+	 * for inner objects.
+	 *
+	 * @param index the tape index of the value
+	 * @return the decoded value
+	 */
+	Object decode(int index) {
+		switch (getType(index)) {
+		case OBJECT:
+			final JsonParser parser = new JsonParser();
+			forEach(index, parser::putEntry);
+			return parser;
+		case ARRAY:
+			final Object[] array = new Object[tape[index] >>> COUNT_SHIFT];
+			for (int i = index + 3, j = 0; j < array.length; i = next(i), j++) array[j] = decode(i);
+			return array;
+		case STRING:
+			return decodeString(index);
+		default:
+			if (isNull(index)) return null;
+			return ParsingUtils.autoDeserializePrimitive(substring(tape[index + 1], tape[index + 2]));
+		}
+	}
+
+	/**
+	 * Iterates over all values of the document in their order and passes
+	 * them with their key. Arrays are passed packed as one value, the root
+	 * array with the key null.
+	 *
+	 * @param action the action to execute for every key value pair
+	 */
+	void forEach(BiConsumer<String, Object> action) {
+		if (size == 0) return;
+		if (getType(0) == ARRAY) action.accept(null, PackedArrays.pack(decode(0)));
+		else forEach(0, action);
+	}
+
+	/**
+	 * Iterates over all values in the object at the tape index and passes
+	 * them with their keys relative to the object. Arrays are passed packed.
+	 *
+	 * @param index  the tape index of the object
+	 * @param action the action to execute for every key value pair
+	 */
+	void forEach(int index, BiConsumer<String, Object> action) {
+		forEach(index, "", action);
+	}
+
+	/**
+	 * Iterates over all values in the object at the tape index and passes
+	 * them with their keys.
+	 *
+	 * @param index  the tape index of the object
+	 * @param prefix the path of the object followed by a dot or an empty
+	 *               string
+	 * @param action the action to execute for every key value pair
+	 */
+	private void forEach(int index, String prefix, BiConsumer<String, Object> action) {
+		for (int i = index + 3; i < tape[index + 2]; i = next(i + 3)) {
+			final String key = prefix + decodeString(i);
+			if (getType(i + 3) == OBJECT) forEach(i + 3, key + ".", action);
+			else action.accept(key, PackedArrays.pack(decode(i + 3)));
+		}
+	}
+
+	/**
+	 * Finds the value of the key in the object at the tape index. If names
+	 * repeat, the last match wins like in the parsed tree, where later
+	 * members overwrite earlier ones.
+	 *
+	 * @param index    the tape index of the object
+	 * @param key      the path that represents the value
+	 * @param position the index in the key, where the name of the member
+	 *                 starts
+	 * @return the tape index of the value or -1 if there is no value
+	 */
+	private int find(int index, String key, int position) {
+		int result = -1;
+		for (int i = index + 3; i < tape[index + 2]; i = next(i + 3)) {
+			final int length = matchName(i, key, position);
+			if (length == -1) continue;
+			if (position + length == key.length()) {
+				result = i + 3;
+			} else if (getType(i + 3) == OBJECT) {
+				final int inner = find(i + 3, key, position + length + 1);
+				if (inner != -1) result = inner;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if the name at the tape index matches the key at the given
+	 * position and is followed by a dot or the end of the key.
+	 *
+	 * @param index    the tape index of the name
+	 * @param key      the path that represents the value
+	 * @param position the index in the key, where the name starts
+	 * @return the length of the name in the key or -1 if the name does not
+	 *         match
+	 */
+	private int matchName(int index, String key, int position) {
+		final int start = tape[index + 1];
+		final int length = tape[index + 2] - start;
+		if ((tape[index] & ESCAPED) == 0 && length <= key.length() - position) {
+			boolean ascii = true;
+			for (int i = 0; i < length; i++) {
+				final int character = charAt(start + i);
+				if (bytes != null && character >= 0x80) {
+					ascii = false;
+					break;
+				}
+				if (character != key.charAt(position + i)) return -1;
+			}
+			if (ascii) return isBoundary(key, position + length) ? length : -1;
+		} else if ((tape[index] & ESCAPED) == 0 && bytes == null) {
+			return -1;
+		}
+		final String name = decodeString(index);
+		return key.startsWith(name, position) && isBoundary(key, position + name.length()) ? name.length() : -1;
+	}
+
+	/**
+	 * Decodes the string at the tape index and resolves its escape codes.
+	 *
+	 * @param index the tape index of the name or string value
+	 * @return the decoded string
+	 */
+	private String decodeString(int index) {
+		final int start = tape[index + 1];
+		final int stop = tape[index + 2];
+		if ((tape[index] & ESCAPED) == 0) return substring(start, stop);
+		final StringBuilder builder = new StringBuilder(stop - start);
+		int segment = start;
+		for (int i = start; i < stop; i++) {
+			if (charAt(i) != '\\') continue;
+			builder.append(substring(segment, i));
+			final int character = charAt(++i);
+			switch (character) {
+			case 'b': builder.append('\b'); break;
+			case 'f': builder.append('\f'); break;
+			case 'n': builder.append('\n'); break;
+			case 'r': builder.append('\r'); break;
+			case 't': builder.append('\t'); break;
+			case 'u':
+				builder.append((char) Integer.parseInt(substring(i + 1, i + 5), 16));
+				i += 4;
+				break;
+			default: builder.append((char) character); break;
+			}
+			segment = i + 1;
+		}
+		return builder.append(substring(segment, stop)).toString();
+	}
+
+	/**
+	 * Scans the whole document and writes the tokens on the tape.
+	 *
+	 * @param position the offset of the first character of the document
+	 * @throws ParserException if the document is not valid json
+	 */
+	private void scan(int position) {
+		int[] stack = new int[16];
+		int depth = 0;
+		int state = STATE_VALUE;
+		while (true) {
+			while (position < end && JsonSource.isWhitespace(charAt(position))) position++;
+			final int character = position < end ? charAt(position) : -1;
+			switch (state) {
+			case STATE_VALUE_OR_END:
+			case STATE_VALUE:
+				if (character == ']' && state == STATE_VALUE_OR_END) {
+					depth = close(stack, depth);
+					position++;
+					state = depth == 0 ? STATE_DONE : STATE_COMMA_OR_END;
+					break;
+				}
+				if (character == -1 && depth == 0 && size == 0) return;
+				if (depth > 0 && getType(stack[depth - 1]) == ARRAY) tape[stack[depth - 1]] += 1 << COUNT_SHIFT;
+				if (character == '{' || character == '[') {
+					if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+					stack[depth++] = size;
+					add(character == '{' ? OBJECT : ARRAY, position++, 0);
+					state = character == '{' ? STATE_NAME_OR_END : STATE_VALUE_OR_END;
+					break;
+				}
+				if (depth == 0) throw syntaxError("The root element has to be an object or an array", position);
+				if (character == '"') {
+					position = scanString(STRING, position + 1);
+				} else if (character == -1 || JsonSource.isDelimiter(character)) {
+					throw syntaxError(character == -1 ? "Unexpected end of document" : "Unexpected character '" + (char) character + "'", position);
+				} else {
+					final int start = position;
+					while (position < end && !JsonSource.isDelimiter(charAt(position))) position++;
+					add(LITERAL, start, position);
+				}
+				state = STATE_COMMA_OR_END;
+				break;
+			case STATE_NAME_OR_END:
+			case STATE_NAME:
+				if (character == '}' && state == STATE_NAME_OR_END) {
+					depth = close(stack, depth);
+					position++;
+					state = depth == 0 ? STATE_DONE : STATE_COMMA_OR_END;
+					break;
+				}
+				if (character != '"') throw syntaxError("Expected a name", position);
+				tape[stack[depth - 1]] += 1 << COUNT_SHIFT;
+				position = scanString(NAME, position + 1);
+				state = STATE_COLON;
+				break;
+			case STATE_COLON:
+				if (character != ':') throw syntaxError("Expected ':'", position);
+				position++;
+				state = STATE_VALUE;
+				break;
+			case STATE_COMMA_OR_END:
+				final int container = getType(stack[depth - 1]);
+				if (character == ',') {
+					position++;
+					state = container == OBJECT ? STATE_NAME : STATE_VALUE;
+				} else if ((character == '}' && container == OBJECT) || (character == ']' && container == ARRAY)) {
+					depth = close(stack, depth);
+					position++;
+					state = depth == 0 ? STATE_DONE : STATE_COMMA_OR_END;
+				} else {
+					throw syntaxError(container == OBJECT ? "Expected ',' or '}'" : "Expected ',' or ']'", position);
+				}
+				break;
+			default:
+				if (character == -1) return;
+				throw syntaxError("Unexpected character '" + (char) character + "' after the root element", position);
+			}
+		}
+	}
+
+	/**
+	 * Scans a string after the opening quotation mark and adds it to the
+	 * tape.
+	 *
+	 * @param type     the type of the string, which is a name or a value
+	 * @param position the offset after the opening quotation mark
+	 * @return the offset after the closing quotation mark
+	 */
+	private int scanString(int type, int position) {
+		final int start = position;
+		int flags = type;
+		while (position < end) {
+			final int character = charAt(position);
+			if (character == '"') {
+				add(flags, start, position);
+				return position + 1;
+			} else if (character == '\\') {
+				flags |= ESCAPED;
+				if (position + 1 < end && charAt(position + 1) == 'u') {
+					for (int i = position + 2; i < position + 6; i++) {
+						if (i >= end || Character.digit(charAt(i), 16) == -1) throw syntaxError("Invalid unicode escape code", position);
+					}
+					position += 6;
+				} else {
+					position += 2;
+				}
+			} else {
+				position++;
+			}
+		}
+		throw syntaxError("Unterminated string", start - 1);
+	}
+
+	/**
+	 * Closes the innermost object or array by storing the tape index after
+	 * its last token.
+	 *
+	 * @param stack the tape indices of the open objects and arrays
+	 * @param depth the amount of open objects and arrays
+	 * @return the new amount of open objects and arrays
+	 */
+	private int close(int[] stack, int depth) {
+		tape[stack[depth - 1] + 2] = size;
+		return depth - 1;
+	}
+
+	/**
+	 * Adds a token to the tape.
+	 *
+	 * @param flags the type and flags of the token
+	 * @param start the start offset of the token
+	 * @param stop  the end offset of the token
+	 */
+	private void add(int flags, int start, int stop) {
+		if (size + 3 > tape.length) tape = Arrays.copyOf(tape, tape.length * 2);
+		tape[size++] = flags;
+		tape[size++] = start;
+		tape[size++] = stop;
+	}
+
+	/**
+	 * Returns the tape index after the value at the tape index.
+	 *
+	 * @param index the tape index of the value
+	 * @return the tape index after the value
+	 */
+	private int next(int index) {
+		final int type = getType(index);
+		return type == OBJECT || type == ARRAY ? tape[index + 2] : index + 3;
+	}
+
+	/**
+	 * Returns the character or byte at the offset of the text.
+	 *
+	 * @param offset the offset in the text
+	 * @return the character or unsigned byte
+	 */
+	private int charAt(int offset) {
+		return bytes != null ? bytes[offset] & 0xFF : string.charAt(offset);
+	}
+
+	/**
+	 * Returns the decoded text between two offsets.
+	 *
+	 * @param start the start offset
+	 * @param stop  the end offset
+	 * @return the decoded text
+	 */
+	private String substring(int start, int stop) {
+		return bytes != null ? new String(bytes, start, stop - start, StandardCharsets.UTF_8) : string.substring(start, stop);
+	}
+
+	/**
+	 * Checks if the text at the offset equals an ASCII string.
+	 *
+	 * @param offset the offset in the text
+	 * @param ascii  the string to compare
+	 * @return if the text equals the string
+	 */
+	private boolean regionEquals(int offset, String ascii) {
+		for (int i = 0; i < ascii.length(); i++) {
+			if (charAt(offset + i) != ascii.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a new {@link ParserException} with the offset of the error.
+	 *
+	 * @param message  the description of the error
+	 * @param position the offset of the error
+	 * @return the new exception
+	 */
+	private ParserException syntaxError(String message, int position) {
+		return new ParserException(message + " at position " + position + "!");
+	}
+
+	/**
+	 * Checks if the position is at the end of the key or at a dot.
+	 *
+	 * @param key      the key to check
+	 * @param position the position in the key
+	 * @return if the position is at the end of a name in the key
+	 */
+	private static boolean isBoundary(String key, int position) {
+		return position == key.length() || key.charAt(position) == '.';
+	}
+
+}
@@ -0,0 +1,478 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes a json document token by token to a {@link Writer}, an
+ * {@link OutputStream} or a {@link WritableByteChannel}. The output is
+ * collected in a bounded buffer and passed to the target whenever the buffer
+ * is full, so the memory usage of the writer doesn't depend on the size of the
+ * document. Streams and channels are written as UTF-8. The writer inserts the
+ * commas, line breaks and indentation itself.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * try (JsonWriter writer = new JsonWriter(outputStream)) {
+ *     writer.beginObject().name("name").value("Input").endObject();
+ * }
+ * </pre>
+ *
+ * @see {@link JsonReader}
+ */
+public class JsonWriter implements Closeable, Flushable {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private static final int EMPTY_DOCUMENT = 0;
+	private static final int NONEMPTY_DOCUMENT = 1;
+	private static final int EMPTY_OBJECT = 2;
+	private static final int NONEMPTY_OBJECT = 3;
+	private static final int DANGLING_NAME = 4;
+	private static final int EMPTY_ARRAY = 5;
+	private static final int NONEMPTY_ARRAY = 6;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private final Writer writer;
+	private final boolean oneliner;
+	private final char[] buffer;
+	private int position;
+	private int[] stack = new int[32];
+	private int depth = 1;
+	private char[] indentation = createIndentation(16);
+
+	/**
+	 * Creates a new writer, which writes the pretty printed json document to
+	 * a {@link Writer}.
+	 *
+	 * @param writer the writer to write to
+	 */
+	public JsonWriter(Writer writer) {
+		this(writer, false);
+	}
+
+	/**
+	 * Creates a new writer, which writes the json document to a
+	 * {@link Writer}.
+	 *
+	 * @param writer   the writer to write to
+	 * @param oneliner if the output should be given in a single line
+	 */
+	public JsonWriter(Writer writer, boolean oneliner) {
+		this(writer, oneliner, BUFFER_SIZE);
+	}
+
+	/**
+	 * Creates a new writer, which writes the json document to a
+	 * {@link Writer} in chunks of the given buffer size.
+	 *
+	 * @param writer     the writer to write to
+	 * @param oneliner   if the output should be given in a single line
+	 * @param bufferSize the amount of characters, which are collected before
+	 *                   they are passed to the writer
+	 * @throws IllegalArgumentException if the buffer size is smaller than 1
+	 */
+	public JsonWriter(Writer writer, boolean oneliner, int bufferSize) {
+		if (bufferSize < 1) throw new IllegalArgumentException("The buffer size has to be at least 1!");
+		this.writer = writer;
+		this.oneliner = oneliner;
+		this.buffer = new char[bufferSize];
+		stack[0] = EMPTY_DOCUMENT;
+	}
+
+	/**
+	 * Creates a new writer, which writes the pretty printed json document
+	 * UTF-8 encoded to an {@link OutputStream}.
+	 *
+	 * @param output the output stream to write to
+	 */
+	public JsonWriter(OutputStream output) {
+		this(output, false);
+	}
+
+	/**
+	 * Creates a new writer, which writes the json document UTF-8 encoded to
+	 * an {@link OutputStream}.
+	 *
+	 * @param output   the output stream to write to
+	 * @param oneliner if the output should be given in a single line
+	 */
+	public JsonWriter(OutputStream output, boolean oneliner) {
+		this(new OutputStreamWriter(output, StandardCharsets.UTF_8), oneliner);
+	}
+
+	/**
+	 * Creates a new writer, which writes the pretty printed json document
+	 * UTF-8 encoded to a {@link WritableByteChannel}.
+	 *
+	 * @param channel the channel to write to
+	 */
+	public JsonWriter(WritableByteChannel channel) {
+		this(channel, false);
+	}
+
+	/**
+	 * Creates a new writer, which writes the json document UTF-8 encoded to
+	 * a {@link WritableByteChannel}.
+	 *
+	 * @param channel  the channel to write to
+	 * @param oneliner if the output should be given in a single line
+	 */
+	public JsonWriter(WritableByteChannel channel, boolean oneliner) {
+		this(Channels.newWriter(channel, StandardCharsets.UTF_8), oneliner);
+	}
+
+	/**
+	 * Begins a new object.
+	 *
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if an object member needs a name first
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter beginObject() throws IOException {
+		beforeValue();
+		write('{');
+		push(EMPTY_OBJECT);
+		return this;
+	}
+
+	/**
+	 * Ends the current object.
+	 *
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if the current element is not an object
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter endObject() throws IOException {
+		return end(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+	}
+
+	/**
+	 * Begins a new array.
+	 *
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if an object member needs a name first
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter beginArray() throws IOException {
+		beforeValue();
+		write('[');
+		push(EMPTY_ARRAY);
+		return this;
+	}
+
+	/**
+	 * Ends the current array.
+	 *
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if the current element is not an array
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter endArray() throws IOException {
+		return end(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+	}
+
+	/**
+	 * Writes the name of the next object member.
+	 *
+	 * @param name the name of the member
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if the current element is not an object
+	 *                               or the last name has no value
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter name(String name) throws IOException {
+		final int context = stack[depth - 1];
+		if (context != EMPTY_OBJECT && context != NONEMPTY_OBJECT) throw new IllegalStateException("A name can only be written inside of an object!");
+		if (context == NONEMPTY_OBJECT) write(',');
+		newLine(depth - 1);
+		writeString(name);
+		write(':');
+		if (!oneliner) write(' ');
+		stack[depth - 1] = DANGLING_NAME;
+		return this;
+	}
+
+	/**
+	 * Writes a primitive value. {@link Boolean} and {@link Number} are
+	 * written unquoted, null as the literal null and all other values are
+	 * written as quoted string of {@link Object#toString()}.
+	 *
+	 * @param value the value to write
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if an object member needs a name first
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter value(Object value) throws IOException {
+		beforeValue();
+		if (value == null) write("null");
+		else if (value instanceof Boolean || value instanceof Number) write(value.toString());
+		else writeString(value.toString());
+		return this;
+	}
+
+	/**
+	 * Writes an integer value without boxing it.
+	 *
+	 * @param value the value to write
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if an object member needs a name first
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter value(long value) throws IOException {
+		beforeValue();
+		if (buffer.length - position < 20) flushBuffer();
+		if (buffer.length < 20 || value == Long.MIN_VALUE) {
+			write(Long.toString(value));
+			return this;
+		}
+		if (value < 0) {
+			buffer[position++] = '-';
+			value = -value;
+		}
+		final int end = position + digits(value);
+		for (int i = end - 1; i >= position; i--) {
+			buffer[i] = (char) ('0' + value % 10);
+			value /= 10;
+		}
+		position = end;
+		return this;
+	}
+
+	/**
+	 * Writes a decimal value without boxing it.
+	 *
+	 * @param value the value to write
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if an object member needs a name first
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter value(double value) throws IOException {
+		beforeValue();
+		write(Double.toString(value));
+		return this;
+	}
+
+	/**
+	 * Writes a boolean value without boxing it.
+	 *
+	 * @param value the value to write
+	 * @return the own writer for further writing
+	 * @throws IllegalStateException if an object member needs a name first
+	 * @throws IOException           if an I/O exception occurs
+	 */
+	public JsonWriter value(boolean value) throws IOException {
+		beforeValue();
+		write(value ? "true" : "false");
+		return this;
+	}
+
+	/**
+	 * Passes the buffered output to the target and flushes it.
+	 *
+	 * @throws IOException if an I/O exception occurs
+	 */
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		writer.flush();
+	}
+
+	/**
+	 * Passes the buffered output to the target and closes it.
+	 *
+	 * @throws IOException if an I/O exception occurs
+	 */
+	@Override
+	public void close() throws IOException {
+		flushBuffer();
+		writer.close();
+	}
+
+	/**
+	 * Updates the state before a value and writes the separator and the
+	 * indentation in front of it.
+	 *
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void beforeValue() throws IOException {
+		switch (stack[depth - 1]) {
+		case EMPTY_DOCUMENT: stack[depth - 1] = NONEMPTY_DOCUMENT; break;
+		case DANGLING_NAME: stack[depth - 1] = NONEMPTY_OBJECT; break;
+		case NONEMPTY_ARRAY: write(','); newLine(depth - 1); break;
+		case EMPTY_ARRAY: stack[depth - 1] = NONEMPTY_ARRAY; newLine(depth - 1); break;
+		case NONEMPTY_DOCUMENT: throw new IllegalStateException("The document already has a root element!");
+		default: throw new IllegalStateException("A member of an object needs a name!");
+		}
+	}
+
+	/**
+	 * Ends the current object or array.
+	 *
+	 * @param empty     the context of the empty element
+	 * @param nonempty  the context of the element with members
+	 * @param character the closing bracket
+	 * @return the own writer for further writing
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private JsonWriter end(int empty, int nonempty, char character) throws IOException {
+		final int context = stack[depth - 1];
+		if (context != empty && context != nonempty) throw new IllegalStateException("Unexpected closing bracket '" + character + "'!");
+		depth--;
+		if (context == nonempty) newLine(depth - 1);
+		write(character);
+		return this;
+	}
+
+	/**
+	 * Pushes a new context on the stack of nested objects and arrays.
+	 *
+	 * @param context the new context
+	 */
+	private void push(int context) {
+		if (depth == stack.length) stack = Arrays.copyOf(stack, depth * 2);
+		stack[depth++] = context;
+	}
+
+	/**
+	 * Writes a line break and the indentation, if the output is pretty
+	 * printed.
+	 *
+	 * @param indentation the amount of tabs
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void newLine(int indentation) throws IOException {
+		if (oneliner) return;
+		if (indentation >= this.indentation.length) this.indentation = createIndentation(indentation * 2);
+		write(this.indentation, indentation + 1);
+	}
+
+	/**
+	 * Creates a line break followed by tabs, which is used as prefix for
+	 * the indented lines.
+	 *
+	 * @param tabs the amount of tabs
+	 * @return the line break followed by tabs
+	 */
+	private static char[] createIndentation(int tabs) {
+		final char[] indentation = new char[tabs + 1];
+		Arrays.fill(indentation, '\t');
+		indentation[0] = '\n';
+		return indentation;
+	}
+
+	/**
+	 * Writes a quoted string and escapes quotation marks, backslashes and
+	 * control characters.
+	 *
+	 * @param string the string to write
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void writeString(String string) throws IOException {
+		write('"');
+		for (int i = 0; i < string.length(); i++) {
+			final char character = string.charAt(i);
+			switch (character) {
+			case '"': write('\\'); write('"'); break;
+			case '\\': write('\\'); write('\\'); break;
+			case '\b': write('\\'); write('b'); break;
+			case '\f': write('\\'); write('f'); break;
+			case '\n': write('\\'); write('n'); break;
+			case '\r': write('\\'); write('r'); break;
+			case '\t': write('\\'); write('t'); break;
+			default:
+				if (character < 0x20) {
+					write("\\u00");
+					write(HEX_DIGITS[character >> 4]);
+					write(HEX_DIGITS[character & 0xF]);
+				} else {
+					write(character);
+				}
+			}
+		}
+		write('"');
+	}
+
+	/**
+	 * Counts the decimal digits of a positive number.
+	 *
+	 * @param value the positive number
+	 * @return the amount of digits
+	 */
+	private static int digits(long value) {
+		int digits = 1;
+		while (value >= 10) {
+			value /= 10;
+			digits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * Writes a string into the buffer.
+	 *
+	 * @param string the string to write
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void write(String string) throws IOException {
+		int start = 0;
+		while (start < string.length()) {
+			if (position == buffer.length) flushBuffer();
+			final int count = Math.min(string.length() - start, buffer.length - position);
+			string.getChars(start, start + count, buffer, position);
+			position += count;
+			start += count;
+		}
+	}
+
+	/**
+	 * Writes the first characters of an array into the buffer.
+	 *
+	 * @param characters the characters to write
+	 * @param count      the amount of characters
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void write(char[] characters, int count) throws IOException {
+		int start = 0;
+		while (start < count) {
+			if (position == buffer.length) flushBuffer();
+			final int length = Math.min(count - start, buffer.length - position);
+			System.arraycopy(characters, start, buffer, position, length);
+			position += length;
+			start += length;
+		}
+	}
+
+	/**
+	 * Writes a character into the buffer.
+	 *
+	 * @param character the character to write
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void write(char character) throws IOException {
+		if (position == buffer.length) flushBuffer();
+		buffer[position++] = character;
+	}
+
+	/**
+	 * Passes the content of the buffer to the target.
+	 *
+	 * @throws IOException if an I/O exception occurs
+	 */
+	private void flushBuffer() throws IOException {
+		if (position == 0) return;
+		writer.write(buffer, 0, position);
+		position = 0;
+	}
+
+}
@@ -0,0 +1,280 @@
+package eu.derzauberer.javautils.parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A dotted key of a {@link KeyValueParser}, which is split into its segments
+ * only once. The compiled key reads and writes the values of parsers like the
+ * methods of the parser with the same name, so hot loops, which read the same
+ * keys again and again, don't scan and split the key for every read. The
+ * methods are part of the key and not overloads of the parser, because the
+ * string key null of the parser represents the root list and a call with null
+ * would be ambiguous otherwise. The key also remembers the entry, to which
+ * it resolved in the last parser, until the structure of this parser
+ * changes, so a repeated read doesn't walk the segments at all. The entry is
+ * referenced weakly, so keys in constants don't keep parsers alive. Compiled
+ * keys are immutable apart from this cache and can be shared between threads
+ * and parsers.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * private static final KeyPath PORT = KeyPath.compile("server.port");
+ *
+ * int port = PORT.getInt(parser, 8080);
+ * </pre>
+ */
+public final class KeyPath {
+
+	private final String key;
+	private final String[] segments;
+	private final int hash;
+	private volatile KeyTree.Resolution resolution;
+
+	/**
+	 * Creates a new compiled key.
+	 *
+	 * @param key      the dotted key
+	 * @param segments the segments of the key
+	 */
+	private KeyPath(String key, String[] segments) {
+		this.key = key;
+		this.segments = segments;
+		this.hash = key.hashCode();
+	}
+
+	/**
+	 * Splits the dotted key into its segments and returns it as compiled key.
+	 * Unlike the string keys of the parsers, the compiled key can't be null,
+	 * use the string key null to access the root list.
+	 *
+	 * @param key the path that represents a value
+	 * @return the compiled key
+	 * @throws NullPointerException if the key is null
+	 */
+	public static KeyPath compile(String key) {
+		if (key == null) throw new NullPointerException("The key of a key path can't be null!");
+		final List<String> segments = new ArrayList<>();
+		int start = 0;
+		int end;
+		while ((end = key.indexOf('.', start)) != -1) {
+			segments.add(key.substring(start, end));
+			start = end + 1;
+		}
+		segments.add(key.substring(start));
+		return new KeyPath(key, segments.toArray(new String[segments.size()]));
+	}
+
+	/**
+	 * Returns the amount of segments of the key.
+	 *
+	 * @return the amount of segments
+	 */
+	public int getDepth() {
+		return segments.length;
+	}
+
+	/**
+	 * Returns the segment of the key at the index.
+	 *
+	 * @param index the index of the segment, starting with the first object
+	 * @return the segment at the index
+	 * @throws ArrayIndexOutOfBoundsException if the index is out of range
+	 */
+	public String getSegment(int index) {
+		return segments[index];
+	}
+
+	/**
+	 * Gets the value of the key from the parser like
+	 * {@link KeyValueParser#get(String)}. Values, which are not objects, are
+	 * read without splitting the key again.
+	 *
+	 * @param parser the parser to read from
+	 * @return the value represented by the key
+	 */
+	public Object get(KeyValueParser<?> parser) {
+		final Object value = parser.getLeafValue(this);
+		return value != null ? PackedArrays.unpack(value) : parser.get(key);
+	}
+
+	/**
+	 * Gets the value of the key from the parser and converts it to the
+	 * requested type like {@link KeyValueParser#get(String, Class)}.
+	 *
+	 * @param <T>    type that the value will be cast in
+	 * @param parser the parser to read from
+	 * @param type   type that the value will be cast in
+	 * @return the value represented by the key
+	 */
+	public <T> T get(KeyValueParser<?> parser, Class<T> type) {
+		final Object value = type.isArray() ? null : parser.getLeafValue(this);
+		if (value == null) return parser.get(key, type);
+		return ParsingUtils.convertObject(PackedArrays.unpack(value), type);
+	}
+
+	/**
+	 * Gets the value of the key from the parser and converts it to the
+	 * requested type like {@link KeyValueParser#get(String, Class, Object)}.
+	 *
+	 * @param <T>      type that the value will be cast in
+	 * @param parser   the parser to read from
+	 * @param type     type that the value will be cast in
+	 * @param standard the standard value, which will returned, if the
+	 *                 requested value is null
+	 * @return the value represented by the key
+	 */
+	public <T> T get(KeyValueParser<?> parser, Class<T> type, T standard) {
+		if (type.isArray()) return parser.get(key, type, standard);
+		final Object value = parser.getLeafValue(this);
+		if (value == null) return standard;
+		return ParsingUtils.convertObject(PackedArrays.unpack(value), type);
+	}
+
+	/**
+	 * Gets the value of the key from the parser as int like
+	 * {@link KeyValueParser#getInt(String, int)}. The read doesn't allocate
+	 * anything.
+	 *
+	 * @param parser   the parser to read from
+	 * @param standard the standard value, which will returned, if the
+	 *                 requested value is null
+	 * @return the value represented by the key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into an int
+	 */
+	public int getInt(KeyValueParser<?> parser, int standard) {
+		return KeyValueParser.toInt(parser.getLeafValue(this), standard);
+	}
+
+	/**
+	 * Gets the value of the key from the parser as long like
+	 * {@link KeyValueParser#getLong(String, long)}. The read doesn't allocate
+	 * anything.
+	 *
+	 * @param parser   the parser to read from
+	 * @param standard the standard value, which will returned, if the
+	 *                 requested value is null
+	 * @return the value represented by the key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into a long
+	 */
+	public long getLong(KeyValueParser<?> parser, long standard) {
+		return KeyValueParser.toLong(parser.getLeafValue(this), standard);
+	}
+
+	/**
+	 * Gets the value of the key from the parser as double like
+	 * {@link KeyValueParser#getDouble(String, double)}. The read doesn't
+	 * allocate anything.
+	 *
+	 * @param parser   the parser to read from
+	 * @param standard the standard value, which will returned, if the
+	 *                 requested value is null
+	 * @return the value represented by the key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into a double
+	 */
+	public double getDouble(KeyValueParser<?> parser, double standard) {
+		return KeyValueParser.toDouble(parser.getLeafValue(this), standard);
+	}
+
+	/**
+	 * Gets the value of the key from the parser as boolean like
+	 * {@link KeyValueParser#getBoolean(String, boolean)}. The read doesn't
+	 * allocate anything.
+	 *
+	 * @param parser   the parser to read from
+	 * @param standard the standard value, which will returned, if the
+	 *                 requested value is null
+	 * @return the value represented by the key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into a boolean
+	 */
+	public boolean getBoolean(KeyValueParser<?> parser, boolean standard) {
+		return KeyValueParser.toBoolean(parser.getLeafValue(this), standard);
+	}
+
+	/**
+	 * Checks if the value of the key is present in the parser like
+	 * {@link KeyValueParser#isPresent(String)}.
+	 *
+	 * @param parser the parser to check
+	 * @return if the value is present
+	 */
+	public boolean isPresent(KeyValueParser<?> parser) {
+		return parser.getLeafValue(this) != null;
+	}
+
+	/**
+	 * Sets the value of the key in the parser like
+	 * {@link KeyValueParser#set(String, Object)}.
+	 *
+	 * @param <P>    the type of the parser
+	 * @param parser the parser to change
+	 * @param value  any object
+	 * @return the parser, which {@link KeyValueParser#set(String, Object)}
+	 *         returned
+	 */
+	public <P extends KeyValueParser<P>> P set(P parser, Object value) {
+		return parser.set(key, value);
+	}
+
+	/**
+	 * Returns the segments of the key.
+	 *
+	 * @return the segments, which must not be changed
+	 */
+	String[] getSegments() {
+		return segments;
+	}
+
+	/**
+	 * Returns the last resolution of the key.
+	 *
+	 * @return the last resolution or null
+	 */
+	KeyTree.Resolution getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * Remembers the resolution of the key.
+	 *
+	 * @param resolution the new resolution
+	 */
+	void setResolution(KeyTree.Resolution resolution) {
+		this.resolution = resolution;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean equals(Object object) {
+		if (this == object) return true;
+		if (!(object instanceof KeyPath)) return false;
+		final KeyPath path = (KeyPath) object;
+		return hash == path.hash && key.equals(path.key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * Returns the dotted key.
+	 *
+	 * @return the dotted key
+	 */
+	@Override
+	public String toString() {
+		return key;
+	}
+
+}
@@ -0,0 +1,742 @@
+package eu.derzauberer.javautils.parser;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Stores the entries of a {@link KeyValueParser} as a tree of the segments of
+ * their dotted keys. Every node keeps its children in insertion order, so
+ * walking the tree depth first returns the keys grouped by their paths in the
+ * order, in which the paths were created. Looking up a key or an object costs
+ * the depth of the key and enumerating an object costs the size of the
+ * object. The key null represents the root list and is stored outside of the
+ * tree. The list of all keys is cached and keys, which are added behind all
+ * existing keys, are appended to it, so building a document key by key costs
+ * the depth of every key. A tree can also be a read-only view of an object
+ * of another tree, which shares the nodes of the other tree.<br>
+ * Trees can share nodes with their copies. Every node belongs to the edition
+ * of the tree, which created it, and a tree copies nodes of other editions
+ * before it changes them, so a change copies only the objects on the path of
+ * its key. The children of a node are kept in an {@link OrderedTrie}, which
+ * copies only the path of the changed child as well, so a change of a wide
+ * object doesn't copy all of its members. The cached list of all keys is shared as well and copied, before a
+ * key is appended to it. The segments of new nodes are taken from a small
+ * dictionary of the tree, so a segment, which repeats below many objects,
+ * like the same field of many records, is usually stored only once. Copies
+ * start with an empty dictionary and frozen trees drop it. Compiled keys
+ * cache the node, to which they resolve, until a node of the tree is added,
+ * copied or removed. Arrays, which are changed in place, belong to an
+ * edition as well and are copied like nodes, before another edition changes
+ * them. A frozen tree isn't changed anymore and can be read by multiple
+ * threads.
+ */
+final class KeyTree {
+
+	private static final int MIN_SEGMENTS = 8;
+	private static final int MAX_SEGMENTS = 1024;
+
+	private Node root;
+	private final boolean isView;
+	private boolean isFrozen;
+	private Object edition = new Object();
+	private Object list;
+	private boolean hasList;
+	private int size;
+	private ArrayList<String> keys;
+	private volatile List<String> keyView;
+	private boolean sharesKeys;
+	private String[] segments;
+	private long version;
+
+	/**
+	 * Creates a new empty tree.
+	 */
+	KeyTree() {
+		root = new Node(null, edition);
+		isView = false;
+	}
+
+	/**
+	 * Creates a tree with an existing root node.
+	 *
+	 * @param root   the node, which contains the entries of the tree
+	 * @param isView if the tree is a read-only view
+	 */
+	private KeyTree(Node root, boolean isView) {
+		this.root = root;
+		this.isView = isView;
+	}
+
+	/**
+	 * Creates a read-only view of the object of a node, which reflects the
+	 * changes of the original tree. If the node stores a value, the view
+	 * contains this value with the segment of the node as key.
+	 *
+	 * @param node the node of the object or null for an empty view
+	 * @return the read-only view
+	 */
+	static KeyTree view(Node node) {
+		if (node == null) return new KeyTree(new Node(null, null), true);
+		if (!node.hasValue) return new KeyTree(node, true);
+		final Node root = new Node(null, null);
+		root.children = new OrderedTrie<Node>(null).put(node.name, node, null);
+		return new KeyTree(root, true);
+	}
+
+	/**
+	 * Creates a copy of the tree in constant time, which shares all nodes with
+	 * this tree. Both trees copy the shared nodes, before they change them,
+	 * so views of this tree don't reflect changes after the copy. Views are
+	 * copied into a new tree, because the original tree of the view can
+	 * still change the nodes.
+	 *
+	 * @return the copy of the tree
+	 */
+	KeyTree copy() {
+		if (isView) {
+			final KeyTree copy = new KeyTree();
+			forEach(copy::put);
+			return copy;
+		}
+		final KeyTree copy = new KeyTree(root, false);
+		copy.list = list;
+		copy.hasList = hasList;
+		copy.size = size;
+		copy.keyView = keyView;
+		if (copy.keyView != null) {
+			copy.keys = keys;
+			copy.sharesKeys = true;
+		}
+		if (!isFrozen) {
+			edition = new Object();
+			sharesKeys = copy.sharesKeys;
+		}
+		return copy;
+	}
+
+	/**
+	 * Creates a read-only view of the whole tree, which shares the nodes with
+	 * this tree.
+	 *
+	 * @return the read-only view
+	 */
+	KeyTree view() {
+		final KeyTree view = new KeyTree(root, true);
+		view.list = list;
+		view.hasList = hasList;
+		return view;
+	}
+
+	/**
+	 * Prevents all further changes of the tree.
+	 */
+	void freeze() {
+		isFrozen = true;
+		segments = null;
+	}
+
+	/**
+	 * Returns the node of a key.
+	 *
+	 * @param key the path of the node
+	 * @return the node or null if the path doesn't exist
+	 */
+	Node getNode(String key) {
+		if (key == null) return null;
+		Node node = root;
+		int start = 0;
+		int end;
+		while ((end = key.indexOf('.', start)) != -1) {
+			node = node.getChild(key.substring(start, end));
+			if (node == null) return null;
+			start = end + 1;
+		}
+		return node.getChild(key.substring(start));
+	}
+
+	/**
+	 * Returns the node of a compiled key. The result is cached in the key
+	 * until the structure of the tree changes, so repeated lookups of the
+	 * same key don't walk the tree. Views don't cache, because the nodes
+	 * belong to another tree. The cache references the tree and the node
+	 * weakly, so a compiled key in a constant doesn't keep discarded trees
+	 * alive.
+	 *
+	 * @param path the compiled path of the node
+	 * @return the node or null if the path doesn't exist
+	 */
+	Node getNode(KeyPath path) {
+		final Resolution cached = path.getResolution();
+		if (cached != null && cached.tree.get() == this && cached.version == version) {
+			if (cached.node == null) return null;
+			final Node node = cached.node.get();
+			if (node != null) return node;
+		}
+		Node node = root;
+		for (String segment : path.getSegments()) {
+			node = node.getChild(segment);
+			if (node == null) break;
+		}
+		if (!isView) path.setResolution(new Resolution(this, version, node));
+		return node;
+	}
+
+	/**
+	 * Returns the root node of the tree.
+	 *
+	 * @return the root node
+	 */
+	Node getRoot() {
+		return root;
+	}
+
+	/**
+	 * Checks if the key stores a value, which can also be null.
+	 *
+	 * @param key the path of the value
+	 * @return if the key stores a value
+	 */
+	boolean containsKey(String key) {
+		if (key == null) return hasList;
+		final Node node = getNode(key);
+		return node != null && node.hasValue;
+	}
+
+	/**
+	 * Returns the value of the key.
+	 *
+	 * @param key the path of the value
+	 * @return the value or null if the key doesn't store a value
+	 */
+	Object get(String key) {
+		if (key == null) return list;
+		final Node node = getNode(key);
+		return node != null ? node.value : null;
+	}
+
+	/**
+	 * Returns the value of the compiled key.
+	 *
+	 * @param path the compiled path of the value
+	 * @return the value or null if the key doesn't store a value
+	 */
+	Object get(KeyPath path) {
+		final Node node = getNode(path);
+		return node != null ? node.value : null;
+	}
+
+	/**
+	 * Stores a value for the key. New keys are added after all existing keys
+	 * of their deepest existing object.
+	 *
+	 * @param key   the path of the value
+	 * @param value the value
+	 */
+	void put(String key, Object value) {
+		checkWritable();
+		if (key == null) {
+			if (!hasList) added();
+			list = value;
+			hasList = true;
+			return;
+		}
+		Node node = getWritableRoot();
+		boolean isLast = keyView != null;
+		int start = 0;
+		int end;
+		while ((end = key.indexOf('.', start)) != -1) {
+			final Node child = node.getWritableChild(key.substring(start, end), this);
+			isLast &= node.last == child;
+			node = child;
+			start = end + 1;
+		}
+		final Node child = node.getWritableChild(key.substring(start), this);
+		isLast &= node.last == child;
+		node = child;
+		if (!node.hasValue) {
+			if (isLast && node.children == null) {
+				if (sharesKeys) {
+					keys = new ArrayList<>(keys);
+					keyView = Collections.unmodifiableList(keys);
+					sharesKeys = false;
+				}
+				size++;
+				keys.add(key);
+			} else {
+				added();
+			}
+		}
+		node.value = value;
+		node.hasValue = true;
+	}
+
+	/**
+	 * Returns the array of the key as buffer, which belongs to this edition
+	 * and can be changed in place. Arrays of other editions and shared
+	 * buffers are copied into a new buffer first. The path is only copied, if
+	 * the node belongs to another edition, because all parents of a node of
+	 * this edition belong to this edition as well. Changing the buffer doesn't
+	 * change the structure of the tree.
+	 *
+	 * @param key the path of the array
+	 * @return the buffer or null if the key doesn't store an array
+	 */
+	PackedArrays.Buffer getBuffer(String key) {
+		checkWritable();
+		if (key == null) {
+			if (!PackedArrays.isArray(list)) return null;
+			final PackedArrays.Buffer buffer = PackedArrays.Buffer.of(list, edition);
+			list = buffer;
+			return buffer;
+		}
+		Node node = getNode(key);
+		if (node == null || !PackedArrays.isArray(node.value)) return null;
+		if (node.edition != edition) {
+			node = getWritableRoot();
+			int start = 0;
+			int end;
+			while ((end = key.indexOf('.', start)) != -1) {
+				node = node.getWritableChild(key.substring(start, end), this);
+				start = end + 1;
+			}
+			node = node.getWritableChild(key.substring(start), this);
+		}
+		final PackedArrays.Buffer buffer = PackedArrays.Buffer.of(node.value, edition);
+		node.value = buffer;
+		return buffer;
+	}
+
+	/**
+	 * Removes the values of the objects on the path of the key and all values
+	 * below the key, so that the key can store a value without conflicting
+	 * with an object. The nodes of the path are kept at their position for
+	 * the following {@link #put(String, Object)}.
+	 *
+	 * @param key the path, which will store a value
+	 */
+	void detach(String key) {
+		checkWritable();
+		if (!conflicts(key)) return;
+		Node node = getWritableRoot();
+		int start = 0;
+		int end;
+		while ((end = key.indexOf('.', start)) != -1) {
+			final String name = key.substring(start, end);
+			if (node.getChild(name) == null) return;
+			node = node.getWritableChild(name, this);
+			if (node.hasValue) {
+				node.value = null;
+				node.hasValue = false;
+				removed();
+			}
+			start = end + 1;
+		}
+		final String name = key.substring(start);
+		if (node.getChild(name) == null) return;
+		node = node.getWritableChild(name, this);
+		if (node.children == null) return;
+		final int count = node.countValues() - (node.hasValue ? 1 : 0);
+		node.children = null;
+		node.last = null;
+		version++;
+		size -= count;
+		invalidateKeys();
+	}
+
+	/**
+	 * Removes the value of the key. Objects, which become empty, are removed
+	 * as well.
+	 *
+	 * @param key the path of the value
+	 * @return if a value was removed
+	 */
+	boolean remove(String key) {
+		checkWritable();
+		if (key == null) {
+			if (!hasList) return false;
+			list = null;
+			hasList = false;
+			removed();
+			return true;
+		}
+		if (!containsKey(key)) return false;
+		final List<Node> path = new ArrayList<>();
+		Node node = getWritableRoot();
+		int start = 0;
+		int end;
+		while ((end = key.indexOf('.', start)) != -1) {
+			path.add(node);
+			node = node.getWritableChild(key.substring(start, end), this);
+			start = end + 1;
+		}
+		path.add(node);
+		node = node.getWritableChild(key.substring(start), this);
+		node.value = null;
+		node.hasValue = false;
+		removed();
+		for (int i = path.size() - 1; i >= 0 && !node.hasValue && !node.hasChildren(); i--) {
+			final Node parent = path.get(i);
+			parent.children = parent.children.remove(node.name, edition);
+			if (parent.last == node) parent.last = null;
+			version++;
+			node = parent;
+		}
+		return true;
+	}
+
+	/**
+	 * Removes all values.
+	 */
+	void clear() {
+		checkWritable();
+		root = new Node(null, edition);
+		version++;
+		list = null;
+		hasList = false;
+		size = 0;
+		segments = null;
+		invalidateKeys();
+	}
+
+	/**
+	 * Returns the amount of stored values.
+	 *
+	 * @return the amount of stored values
+	 */
+	int size() {
+		if (isView) return root.countValues() - (root.hasValue ? 1 : 0);
+		return size;
+	}
+
+	/**
+	 * Checks if the tree is a read-only view.
+	 *
+	 * @return if the tree is a read-only view
+	 */
+	boolean isView() {
+		return isView;
+	}
+
+	/**
+	 * Checks if the tree is frozen.
+	 *
+	 * @return if the tree is frozen
+	 */
+	boolean isFrozen() {
+		return isFrozen;
+	}
+
+	/**
+	 * Returns all keys in the order of the tree. The list is cached until a
+	 * key is removed or added in front of other keys.
+	 *
+	 * @return an unmodifiable list of all keys
+	 */
+	List<String> getKeys() {
+		if (isView) {
+			final List<String> keys = new ArrayList<>();
+			forEach((key, value) -> keys.add(key));
+			return Collections.unmodifiableList(keys);
+		}
+		List<String> keyView = this.keyView;
+		if (keyView == null) {
+			final ArrayList<String> keys = new ArrayList<>(size);
+			forEach((key, value) -> keys.add(key));
+			this.keys = keys;
+			this.keyView = keyView = Collections.unmodifiableList(keys);
+		}
+		return keyView;
+	}
+
+	/**
+	 * Iterates over all keys and values in the order of the tree.
+	 *
+	 * @param action the action to execute for every key and value
+	 */
+	void forEach(BiConsumer<String, Object> action) {
+		if (hasList) action.accept(null, list);
+		for (Node child : root.getChildren()) child.forEach(child.name, action);
+	}
+
+	/**
+	 * Makes sure, that the tree is neither a read-only view nor frozen.
+	 *
+	 * @throws UnsupportedOperationException if the tree is read-only
+	 */
+	private void checkWritable() {
+		if (isView) throw new UnsupportedOperationException("The parser is a read-only view!");
+		if (isFrozen) throw new UnsupportedOperationException("The parser is immutable!");
+	}
+
+	/**
+	 * Checks if storing a value for the key has to remove the values of
+	 * objects on its path or values below it.
+	 *
+	 * @param key the path, which will store a value
+	 * @return if the key conflicts with other values
+	 */
+	private boolean conflicts(String key) {
+		Node node = root;
+		int start = 0;
+		int end;
+		while ((end = key.indexOf('.', start)) != -1) {
+			node = node.getChild(key.substring(start, end));
+			if (node == null) return false;
+			if (node.hasValue) return true;
+			start = end + 1;
+		}
+		node = node.getChild(key.substring(start));
+		return node != null && node.children != null;
+	}
+
+	/**
+	 * Returns the root node and copies it before, if it belongs to another
+	 * edition.
+	 *
+	 * @return the root node of this edition
+	 */
+	private Node getWritableRoot() {
+		if (root.edition != edition) {
+			root = root.copy(edition);
+			version++;
+		}
+		return root;
+	}
+
+	/**
+	 * Returns the instance of the segment, which is stored in the dictionary
+	 * of the tree, or adds the segment to it. The dictionary is a small hash
+	 * table, which keeps one segment per slot and grows with the tree up to
+	 * {@link #MAX_SEGMENTS} slots, so it costs almost no memory for segments,
+	 * which don't repeat. Small trees don't use a dictionary at all.
+	 *
+	 * @param name the segment of a key
+	 * @return the segment of the dictionary or the segment itself
+	 */
+	private String getSegment(String name) {
+		if (segments == null) {
+			if (size < MIN_SEGMENTS) return name;
+			segments = new String[MIN_SEGMENTS];
+		} else if (segments.length < MAX_SEGMENTS && size > segments.length) {
+			final String[] old = segments;
+			segments = new String[old.length * 2];
+			for (String segment : old) {
+				if (segment != null) segments[segment.hashCode() & (segments.length - 1)] = segment;
+			}
+		}
+		final int index = name.hashCode() & (segments.length - 1);
+		if (name.equals(segments[index])) return segments[index];
+		segments[index] = name;
+		return name;
+	}
+
+	/**
+	 * Updates the size after a key was added in front of other keys.
+	 */
+	private void added() {
+		size++;
+		invalidateKeys();
+	}
+
+	/**
+	 * Updates the size after a key was removed.
+	 */
+	private void removed() {
+		size--;
+		invalidateKeys();
+	}
+
+	/**
+	 * Drops the cached list of all keys.
+	 */
+	private void invalidateKeys() {
+		keys = null;
+		keyView = null;
+		sharesKeys = false;
+	}
+
+	/**
+	 * Remembers the node, to which a compiled key resolves in a version of the
+	 * structure of a tree. The tree and the node are referenced weakly.
+	 */
+	static final class Resolution {
+
+		private final WeakReference<KeyTree> tree;
+		private final long version;
+		private final WeakReference<Node> node;
+
+		/**
+		 * Creates a new resolution.
+		 *
+		 * @param tree    the tree, in which the key was resolved
+		 * @param version the version of the structure of the tree
+		 * @param node    the node of the key or null if it doesn't exist
+		 */
+		private Resolution(KeyTree tree, long version, Node node) {
+			this.tree = new WeakReference<>(tree);
+			this.version = version;
+			this.node = node != null ? new WeakReference<>(node) : null;
+		}
+
+	}
+
+	/**
+	 * Represents a segment of a key, which can store a value and contain
+	 * further segments.
+	 */
+	static final class Node {
+
+		private final String name;
+		private final Object edition;
+		private OrderedTrie<Node> children;
+		private Node last;
+		private Object value;
+		private boolean hasValue;
+
+		/**
+		 * Creates a new node.
+		 *
+		 * @param name    the segment of the key or null for the root
+		 * @param edition the edition of the tree, which owns the node
+		 */
+		private Node(String name, Object edition) {
+			this.name = name;
+			this.edition = edition;
+		}
+
+		/**
+		 * Returns the segment of the key.
+		 *
+		 * @return the segment of the key
+		 */
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns the stored value.
+		 *
+		 * @return the stored value or null
+		 */
+		Object getValue() {
+			return value;
+		}
+
+		/**
+		 * Checks if the node stores a value, which can also be null.
+		 *
+		 * @return if the node stores a value
+		 */
+		boolean hasValue() {
+			return hasValue;
+		}
+
+		/**
+		 * Checks if the node contains further segments.
+		 *
+		 * @return if the node contains further segments
+		 */
+		boolean hasChildren() {
+			return children != null && !children.isEmpty();
+		}
+
+		/**
+		 * Returns the child with the segment.
+		 *
+		 * @param name the segment of the child
+		 * @return the child or null if it doesn't exist
+		 */
+		Node getChild(String name) {
+			return children != null ? children.get(name) : null;
+		}
+
+		/**
+		 * Returns the children in insertion order.
+		 *
+		 * @return the children
+		 */
+		Iterable<Node> getChildren() {
+			return children != null ? children : Collections.emptyList();
+		}
+
+		/**
+		 * Iterates over the values of this node and all nodes below it in the
+		 * order of the tree.
+		 *
+		 * @param prefix the key of this node
+		 * @param action the action to execute for every key and value
+		 */
+		void forEach(String prefix, BiConsumer<String, Object> action) {
+			if (hasValue) action.accept(prefix, value);
+			if (children == null) return;
+			for (Node child : children) {
+				child.forEach(prefix + '.' + child.name, action);
+			}
+		}
+
+		/**
+		 * Returns the child with the segment, which belongs to the edition of
+		 * the tree. The child is created with the segment of the dictionary
+		 * of the tree, if it doesn't exist, and copied, if it belongs to
+		 * another edition. The node itself must belong to the edition.
+		 *
+		 * @param name the segment of the child
+		 * @param tree the tree, which changes the child
+		 * @return the child of the edition
+		 */
+		private Node getWritableChild(String name, KeyTree tree) {
+			final Object edition = tree.edition;
+			if (children == null) children = new OrderedTrie<>(edition);
+			Node child = children.get(name);
+			if (child == null) {
+				child = new Node(tree.getSegment(name), edition);
+				children = children.add(child.name, child, edition);
+				last = child;
+				tree.version++;
+			} else if (child.edition != edition) {
+				final Node copy = child.copy(edition);
+				children = children.put(name, copy, edition);
+				if (last == child) last = copy;
+				tree.version++;
+				child = copy;
+			}
+			return child;
+		}
+
+		/**
+		 * Creates a copy of this node for another edition, which shares the
+		 * children with this node. The children are copied only partially,
+		 * when the copy changes them, so copying a wide object doesn't cost its
+		 * width.
+		 *
+		 * @param edition the edition of the copy
+		 * @return the copy of the node
+		 */
+		private Node copy(Object edition) {
+			final Node copy = new Node(name, edition);
+			copy.children = children;
+			copy.last = last;
+			copy.value = value;
+			copy.hasValue = hasValue;
+			return copy;
+		}
+
+		/**
+		 * Counts the values of this node and all nodes below it.
+		 *
+		 * @return the amount of values
+		 */
+		private int countValues() {
+			int count = hasValue ? 1 : 0;
+			if (children != null) {
+				for (Node child : children) count += child.countValues();
+			}
+			return count;
+		}
+
+	}
+
+}
@@ -6,22 +6,24 @@ import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 import eu.derzauberer.javautils.accessible.AccessibleVisibility;
 import eu.derzauberer.javautils.accessible.Accessor;
@@ -46,8 +48,7 @@ import eu.derzauberer.javautils.accessible.AccessorException;
  */
 public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Parsable<P> {
 
-	private final List<String> structure = new ArrayList<>();
-	private final Map<String, Object> entries = new HashMap<>();
+	private KeyTree tree = new KeyTree();
 
 	/**
 	 * Creates a new empty parser.
@@ -83,8 +84,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @param parser the parser to copy
 	 */
 	public KeyValueParser(KeyValueParser<?> parser) {
-		structure.addAll(parser.getStructure());
-		parser.getEntries().forEach(entries::put);
+		parser.forEach((key, value) -> tree.put(key, PackedArrays.pack(value)));
 	}
 
 	/**
@@ -117,6 +117,45 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 		return (P) this;
 	}
 
+	/**
+	 * Sets all entries of the map, like {@link #set(String, Object)} does for
+	 * every entry. The keys of the map are paths separated by dots. The
+	 * entries are set as one batch, see {@link #batch(Consumer)}.
+	 * 
+	 * @param entries the paths and their values
+	 * @return the own parser object for further customizations
+	 */
+	public P setAll(Map<String, ?> entries) {
+		return batch(parser -> entries.forEach(parser::set));
+	}
+
+	/**
+	 * Applies multiple changes as one batch. The parser itself applies the
+	 * changes directly, because every change costs only the depth of its key,
+	 * but parsers, which copy their entries for a change, copy them only once
+	 * for the whole batch. A {@link ConcurrentJsonParser} publishes the batch
+	 * as one atomic write, like {@link PersistentJsonParser#update(Consumer)}
+	 * returns its changes as one new version. Bulk imports should therefore
+	 * use a batch.<br>
+	 * <br>
+	 * Example:<br>
+	 * 
+	 * <pre>
+	 * parser.batch(batch -&gt; {
+	 * 	batch.set("server.host", "localhost");
+	 * 	batch.set("server.port", 8080);
+	 * });
+	 * </pre>
+	 * 
+	 * @param changes the action, which changes the parser
+	 * @return the own parser object for further customizations
+	 */
+	@SuppressWarnings("unchecked")
+	public P batch(Consumer<P> changes) {
+		changes.accept((P) this);
+		return (P) this;
+	}
+
 	/**
 	 * Removes the value by its key if present. The key null represents the root
 	 * list.
@@ -126,8 +165,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 */
 	@SuppressWarnings("unchecked")
 	public P remove(String key) {
-		structure.remove(key);
-		entries.remove(key);
+		getTree().remove(key);
 		return (P) this;
 	}
 
@@ -139,7 +177,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return the value represented by its key
 	 */
 	public Object get(String key) {
-		return getValue(key);
+		return PackedArrays.unpack(getValue(key));
 	}
 
 	/**
@@ -153,8 +191,8 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T get(String key, Class<T> type) {
-		if (type.isArray()) return (T) getAsArray(key, type);
-		return ParsingUtils.convertObject(getValue(key), type);
+		if (type.isArray()) return (T) toArray(getArrayValue(key), type);
+		return ParsingUtils.convertObject(PackedArrays.unpack(getValue(key)), type);
 	}
 
 	/**
@@ -171,9 +209,10 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T get(String key, Class<T> type, T standard) {
-		if (!isPresent(key)) return standard;
-		if (type.isArray()) return (T) getAsArray(key, type);
-		return ParsingUtils.convertObject(getValue(key), type);
+		final Object value = getLeafValue(key);
+		if (value == null) return standard;
+		if (type.isArray()) return (T) toArray(requireArray(key, value), type);
+		return ParsingUtils.convertObject(PackedArrays.unpack(value), type);
 	}
 	
 	/**
@@ -189,28 +228,119 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> Optional<T> getOptional(String key, Class<T> type) {
-		if (!isPresent(key)) return Optional.empty();
-		if (type.isArray()) return Optional.of((T) getAsArray(key, type));
-		return Optional.of(ParsingUtils.convertObject(getValue(key), type));
+		final Object value = getLeafValue(key);
+		if (value == null) return Optional.empty();
+		if (type.isArray()) return Optional.of((T) toArray(requireArray(key, value), type));
+		return Optional.of(ParsingUtils.convertObject(PackedArrays.unpack(value), type));
+	}
+	
+	/**
+	 * Gets the value by its key as int without boxing it. The key null
+	 * represents the root list. Numbers are narrowed like
+	 * {@link Number#intValue()}, booleans are 1 or 0 and strings are parsed
+	 * like {@link ParsingUtils#convertNumber(Object, Class)} does. If there is
+	 * no value then it will return the standard value from the parameter.
+	 * 
+	 * @param key      the path that represents the value
+	 * @param standard the standard value, which will returned, if the requested
+	 *                 value is null
+	 * @return the value represented by its key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into an int
+	 */
+	public int getInt(String key, int standard) {
+		return toInt(getLeafValue(key), standard);
+	}
+	
+	/**
+	 * Gets the value by its key as long without boxing it. The key null
+	 * represents the root list. Numbers are converted like
+	 * {@link Number#longValue()}, booleans are 1 or 0 and strings are parsed
+	 * like {@link ParsingUtils#convertNumber(Object, Class)} does. If there is
+	 * no value then it will return the standard value from the parameter.
+	 * 
+	 * @param key      the path that represents the value
+	 * @param standard the standard value, which will returned, if the requested
+	 *                 value is null
+	 * @return the value represented by its key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into a long
+	 */
+	public long getLong(String key, long standard) {
+		return toLong(getLeafValue(key), standard);
+	}
+	
+	/**
+	 * Gets the value by its key as double without boxing it. The key null
+	 * represents the root list. Numbers are converted like
+	 * {@link Number#doubleValue()}, booleans are 1 or 0 and strings are
+	 * parsed like {@link ParsingUtils#convertNumber(Object, Class)} does. If
+	 * there is no value then it will return the standard value from the
+	 * parameter.
+	 * 
+	 * @param key      the path that represents the value
+	 * @param standard the standard value, which will returned, if the requested
+	 *                 value is null
+	 * @return the value represented by its key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into a double
+	 */
+	public double getDouble(String key, double standard) {
+		return toDouble(getLeafValue(key), standard);
+	}
+	
+	/**
+	 * Gets the value by its key as boolean without boxing it. The key null
+	 * represents the root list. Numbers are true, if they are not zero, and
+	 * strings, if they are "true". If there is no value then it will return
+	 * the standard value from the parameter.
+	 * 
+	 * @param key      the path that represents the value
+	 * @param standard the standard value, which will returned, if the requested
+	 *                 value is null
+	 * @return the value represented by its key
+	 * @throws ClassCastException if it is not possible to convert the value
+	 *                            into a boolean
+	 */
+	public boolean getBoolean(String key, boolean standard) {
+		return toBoolean(getLeafValue(key), standard);
 	}
 	
 	/**
 	 * Gets the object by it's key. If the value is not an object, it will
 	 * put it as single value in a new object. It will also return an
-	 * empty object if nothing was found by the given key.
+	 * empty object if nothing was found by the given key. The entries are
+	 * copied into the new object, use {@link #getObjectView(String)} to read
+	 * them without copying.
 	 * 
 	 * @param key the path that represents the value
 	 * @return the new object as parser
 	 */
 	public P getObject(String key) {
 		final P parser = getImplementationInstance();
-		for (String entry : getKeys(key)) {
-			final String entryKey = key.equals(entry) ? entry.substring(entry.lastIndexOf('.') + 1) : entry.substring(key.length() + 1);
-			parser.set(entryKey, getValue(entry));
-		}
+		final KeyTree.Node node = getTree().getNode(key);
+		if (node == null) return parser;
+		if (node.hasValue()) parser.putEntry(node.getName(), PackedArrays.share(node.getValue()));
+		putChildren(node, parser);
 		return parser;
 	}
 	 
+	/**
+	 * Gets a read-only view of the object by it's key, which shares the
+	 * entries with this parser instead of copying them. Changes of this
+	 * parser are visible in the view, as long as the object exists, and all
+	 * changes of the view throw an {@link UnsupportedOperationException}. If
+	 * the value is not an object, the view contains it as single value. It
+	 * will also return an empty view if nothing was found by the given key.
+	 * 
+	 * @param key the path that represents the value
+	 * @return the read-only view of the object as parser
+	 * @see #getObject(String)
+	 */
+	public P getObjectView(String key) {
+		return createInstance(KeyTree.view(getTree().getNode(key)));
+	}
+	 
 	/**
 	 * Gets the list as value by its key The key null represents the root list.
 	 * If there is no value then it will return null. Note, that the returned
@@ -248,6 +378,42 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 		return getAsCollection(key, new ArrayList<>(), type);
 	}
 	
+	/**
+	 * Gets a read-only list view of the array by its key. The key null
+	 * represents the root list. The view doesn't copy the array, elements are
+	 * read from the stored array, when they are accessed. Setting a new value
+	 * for the key or changing the array in place doesn't change an existing
+	 * view.
+	 * 
+	 * @param key the path that represents the value
+	 * @return the read-only list view of the array represented by its key
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 * @see {@link List}
+	 */
+	public List<?> getListView(String key) {
+		return getListView(key, Object.class);
+	}
+	
+	/**
+	 * Gets a read-only list view of the array by its key, which converts the
+	 * elements to the requested type, when they are accessed. The key null
+	 * represents the root list. The view doesn't copy the array. Setting a new
+	 * value for the key or changing the array in place doesn't change an
+	 * existing view.
+	 * 
+	 * @param <T>  type that the elements will be cast in
+	 * @param key  the path that represents the value
+	 * @param type type that the elements will be cast in
+	 * @return the read-only list view of the array represented by its key
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 * @see {@link List}
+	 */
+	public <T> List<T> getListView(String key, Class<T> type) {
+		return new ArrayView<>(PackedArrays.share(getArrayValue(key)), type);
+	}
+	
 	/**
 	 * Gets the set as value by its key The key null represents the root list.
 	 * Note, that the returned set is a copy of the original array, changes
@@ -298,9 +464,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @see {@link Collection}
 	 */
 	public Collection<?> getAsCollection(String key) {
-		if (!isPresent(key)) throw new NullPointerException("The key " + key + " is not present!");
-		if (!isArray(key)) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
-		return Arrays.stream((Object[]) get(key)).toList();
+		return Collections.unmodifiableList(Arrays.asList(PackedArrays.toObjectArray(getArrayValue(key))));
 	}
 
 	/**
@@ -319,11 +483,10 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @see {@link Collection}
 	 */
 	public <T, C extends Collection<T>> C getAsCollection(String key, C collection, Class<T> type) {
-		if (!isPresent(key)) throw new NullPointerException("The key " + key + " is not present!");
-		if (!isArray(key)) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
-		final Object[] array = (Object[]) get(key);
-		for (int i = 0; i < array.length; i++) {
-			collection.add(ParsingUtils.convertObject(array[i], type));
+		final Object array = getArrayValue(key);
+		final int length = PackedArrays.length(array);
+		for (int i = 0; i < length; i++) {
+			collection.add(ParsingUtils.convertObject(PackedArrays.get(array, i), type));
 		}
 		return collection;
 	}
@@ -340,12 +503,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @throws NullPointerException     if the the key represents no value
 	 */
 	public Object[] getAsArray(String key) {
-		if (!isPresent(key)) throw new NullPointerException("The key " + key + " is not present!");
-		if (!isArray(key)) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
-		final Object[] existingArray = (Object[]) get(key);
-		final Object[] newArray = new Object[existingArray.length];
-		System.arraycopy(existingArray, 0, newArray, 0, existingArray.length);
-		return newArray;
+		return PackedArrays.toObjectArray(getArrayValue(key));
 	}
 
 	/**
@@ -364,17 +522,85 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 */
 	@SuppressWarnings("unchecked")
 	public <T> T[] getAsArray(String key, Class<T> type) {
-		if (!isPresent(key)) throw new NullPointerException("The key " + key + " is not present!");
-		if (!isArray(key)) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
-		final Object[] existingArray = (Object[]) get(key);
-		final T newArray[] = (T[]) Array.newInstance(type, existingArray.length);
-		int i = 0;
-		for (Object object : existingArray) {
-			newArray[i] = ParsingUtils.convertObject(object, type);
-			i++;
+		final Object existingArray = getArrayValue(key);
+		final T newArray[] = (T[]) Array.newInstance(type, PackedArrays.length(existingArray));
+		for (int i = 0; i < newArray.length; i++) {
+			newArray[i] = ParsingUtils.convertObject(PackedArrays.get(existingArray, i), type);
 		}
 		return newArray;
 	}
+
+	/**
+	 * Gets the array as value by its key as int array without boxing the
+	 * elements. The key null represents the root list. Arrays of integers
+	 * are stored packed, other elements are converted into integers. Note,
+	 * that the returned value is a copy of the original one, changes doesn't
+	 * have any impact on the original array. To change the value please put
+	 * the array back in with {{@link #set(String, Object)}}.
+	 * 
+	 * @param key the path that represents the value
+	 * @return the array as value represented by its key
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 * @throws ClassCastException       if an element can't be converted
+	 */
+	public int[] getIntArray(String key) {
+		return PackedArrays.toIntArray(getArrayValue(key));
+	}
+
+	/**
+	 * Gets the array as value by its key as long array without boxing the
+	 * elements. The key null represents the root list. Arrays of integers
+	 * are stored packed, other elements are converted into integers. Note,
+	 * that the returned value is a copy of the original one, changes doesn't
+	 * have any impact on the original array. To change the value please put
+	 * the array back in with {{@link #set(String, Object)}}.
+	 * 
+	 * @param key the path that represents the value
+	 * @return the array as value represented by its key
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 * @throws ClassCastException       if an element can't be converted
+	 */
+	public long[] getLongArray(String key) {
+		return PackedArrays.toLongArray(getArrayValue(key));
+	}
+
+	/**
+	 * Gets the array as value by its key as double array without boxing the
+	 * elements. The key null represents the root list. Arrays of decimals are
+	 * stored packed, other elements are converted into decimals. Note, that
+	 * the returned value is a copy of the original one, changes doesn't have
+	 * any impact on the original array. To change the value please put the
+	 * array back in with {{@link #set(String, Object)}}.
+	 * 
+	 * @param key the path that represents the value
+	 * @return the array as value represented by its key
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 * @throws ClassCastException       if an element can't be converted
+	 */
+	public double[] getDoubleArray(String key) {
+		return PackedArrays.toDoubleArray(getArrayValue(key));
+	}
+
+	/**
+	 * Gets the array as value by its key as boolean array without boxing the
+	 * elements. The key null represents the root list. Arrays of booleans are
+	 * stored packed as bits, other elements are converted into booleans.
+	 * Note, that the returned value is a copy of the original one, changes
+	 * doesn't have any impact on the original array. To change the value
+	 * please put the array back in with {{@link #set(String, Object)}}.
+	 * 
+	 * @param key the path that represents the value
+	 * @return the array as value represented by its key
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 * @throws ClassCastException       if an element can't be converted
+	 */
+	public boolean[] getBooleanArray(String key) {
+		return PackedArrays.toBooleanArray(getArrayValue(key));
+	}
 	
 	/**
 	 * Gets an object at a specific index of an array by it's key. The key
@@ -391,9 +617,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 *                                        value
 	 */
 	public Object getAtArrayIndex(String key, int index) {
-		if (!isPresent(key)) throw new NullPointerException("The key " + key + " is not present!");
-		if (!isArray(key)) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
-		return ((Object[]) getValue(key))[index];
+		return PackedArrays.get(getArrayValue(key), index);
 	}
 	
 	/**
@@ -415,9 +639,103 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 *                                        the object into the given type
 	 */
 	public <T> T getAtArrayIndex(String key, int index, Class<T> type) {
-		if (!isPresent(key)) throw new NullPointerException("The key " + key + " is not present!");
-		if (!isArray(key)) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
-		return ParsingUtils.convertObject(((Object[]) getValue(key))[index], type);
+		return ParsingUtils.convertObject(PackedArrays.get(getArrayValue(key), index), type);
+	}
+	
+	/**
+	 * Replaces the value at a specific index of an array by it's key. The key
+	 * null represents the root list. The array is changed in place instead of
+	 * being copied, see {@link #append(String, Object)}.
+	 * 
+	 * @param key   the path that represents the array
+	 * @param index the array index of the value
+	 * @param value the new value of the index
+	 * @return the own parser object for further customizations
+	 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+	 *                                        array
+	 * @throws IllegalArgumentException       if the key does not point to an
+	 *                                        array
+	 * @throws NullPointerException           if the the key represents no
+	 *                                        value
+	 */
+	@SuppressWarnings("unchecked")
+	public P setAtArrayIndex(String key, int index, Object value) {
+		getBuffer(key).set(index, value);
+		return (P) this;
+	}
+	
+	/**
+	 * Adds the value at the end of an array by it's key. The key null
+	 * represents the root list. The array is changed in place and keeps spare
+	 * capacity, so appending many values costs amortized constant time per
+	 * value instead of copying the array every time. If the key represents no
+	 * value, a new array with the value is set like with
+	 * {@link #set(String, Object)}. Arrays, which were copied with the parser
+	 * or are still read by a list view, are copied once before they are
+	 * changed, so the change never affects other parsers or views.
+	 * 
+	 * @param key   the path that represents the array
+	 * @param value the value to add
+	 * @return the own parser object for further customizations
+	 * @throws IllegalArgumentException if the key represents an object or a
+	 *                                  value, which is not an array
+	 */
+	@SuppressWarnings("unchecked")
+	public P append(String key, Object value) {
+		if (isPresent(key)) {
+			final PackedArrays.Buffer buffer = getBuffer(key);
+			buffer.insert(buffer.length(), value);
+		} else if (isObject(key)) {
+			throw new IllegalArgumentException("The key " + key + " does not represent an array!");
+		} else {
+			setValue(key, new Object[] {value});
+		}
+		return (P) this;
+	}
+	
+	/**
+	 * Inserts the value at a specific index of an array by it's key and moves
+	 * the following values back. The key null represents the root list. The
+	 * array is changed in place instead of being copied, see
+	 * {@link #append(String, Object)}.
+	 * 
+	 * @param key   the path that represents the array
+	 * @param index the array index of the new value
+	 * @param value the value to insert
+	 * @return the own parser object for further customizations
+	 * @throws ArrayIndexOutOfBoundsException if the index is out of range
+	 *                                        ({@code index < 0 || index > array.length})
+	 * @throws IllegalArgumentException       if the key does not point to an
+	 *                                        array
+	 * @throws NullPointerException           if the the key represents no
+	 *                                        value
+	 */
+	@SuppressWarnings("unchecked")
+	public P insertAt(String key, int index, Object value) {
+		getBuffer(key).insert(index, value);
+		return (P) this;
+	}
+	
+	/**
+	 * Removes the value at a specific index of an array by it's key and moves
+	 * the following values forward. The key null represents the root list.
+	 * The array is changed in place instead of being copied, see
+	 * {@link #append(String, Object)}.
+	 * 
+	 * @param key   the path that represents the array
+	 * @param index the array index of the value
+	 * @return the own parser object for further customizations
+	 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+	 *                                        array
+	 * @throws IllegalArgumentException       if the key does not point to an
+	 *                                        array
+	 * @throws NullPointerException           if the the key represents no
+	 *                                        value
+	 */
+	@SuppressWarnings("unchecked")
+	public P removeAt(String key, int index) {
+		getBuffer(key).remove(index);
+		return (P) this;
 	}
 	
 	/**
@@ -461,7 +779,8 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 					String.class.isAssignableFrom(type) ||
 					Character.class.isAssignableFrom(type) ||
 					Boolean.class.isAssignableFrom(type) ||
-					Number.class.isAssignableFrom(type)) {
+					Number.class.isAssignableFrom(type) ||
+					(type.isArray() && type.getComponentType().isPrimitive())) {
 				entry.add().accept(entry.value());
 			} else if (Collection.class.isAssignableFrom(type) || type.isArray()) {
 				final Object[] sourceArray = type.isArray() ? (Object[]) entry.value() : ((Collection<Object>) entry.value()).toArray();
@@ -653,8 +972,8 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return if the value represented by its key is primitive
 	 */
 	public boolean isPrimitive(String key) {
-		if (!isPresent(key)) return false;
-		return !isArray(key) && !isObject(key);
+		final Object value = getLeafValue(key);
+		return value != null && !PackedArrays.isArray(value);
 	}
 
 	/**
@@ -665,8 +984,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return if the value represented by its key is an array
 	 */
 	public boolean isArray(String key) {
-		if (!isPresent(key)) return false;
-		return get(key).getClass().isArray();
+		return PackedArrays.isArray(getLeafValue(key));
 	}
 
 	/**
@@ -678,8 +996,8 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 *         ({@link KeyValueParser})
 	 */
 	public boolean isObject(String key) {
-		if (containsKey(key)) return false;
-		return getKeys(key).size() > 0;
+		final KeyTree.Node node = getTree().getNode(key);
+		return node != null && !node.hasValue() && node.hasChildren();
 	}
 
 	/**
@@ -691,7 +1009,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return if the value is present
 	 */
 	public boolean isPresent(String key) {
-		return entries.get(key) != null;
+		return getTree().get(key) != null;
 	}
 
 	/**
@@ -704,7 +1022,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return if the value exist
 	 */
 	public boolean containsKey(String key) {
-		return entries.containsKey(key);
+		return getTree().containsKey(key);
 	}
 
 	/**
@@ -713,7 +1031,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return if there is nothing stored
 	 */
 	public boolean isEmpty() {
-		return entries.isEmpty();
+		return getTree().size() == 0;
 	}
 
 	/**
@@ -723,7 +1041,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return the amount of entries
 	 */
 	public int size() {
-		return entries.size();
+		return getTree().size();
 	}
 
 	/**
@@ -733,19 +1051,23 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @return the amount of entries
 	 */
 	public List<String> getKeys() {
-		return Collections.unmodifiableList(structure);
+		return getTree().getKeys();
 	}
 
 	/**
 	 * Returns a {@link List} of all keys in the parser, which are sub elements of
-	 * the given key. Each key represents a value, but the value can be null.
+	 * the given key. The key itself is included, if it represents a value. Each
+	 * key represents a value, but the value can be null.
 	 * 
 	 * @param key the path that contains the keys
 	 * @return the amount of entries
 	 */
 	public List<String> getKeys(String key) {
-		return getKeys().stream().filter(string -> string.startsWith(Objects.requireNonNull(key)))
-				.collect(Collectors.toUnmodifiableList());
+		final KeyTree.Node node = getTree().getNode(Objects.requireNonNull(key));
+		if (node == null) return Collections.emptyList();
+		final List<String> keys = new ArrayList<>();
+		node.forEach(key, (path, value) -> keys.add(path));
+		return Collections.unmodifiableList(keys);
 	}
 
 	/**
@@ -754,7 +1076,7 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 * @param action the action to iterate over for all key value pairs
 	 */
 	public void forEach(BiConsumer<String, Object> action) {
-		for (String key : structure) action.accept(key, entries.get(key));
+		getTree().forEach((key, value) -> action.accept(key, PackedArrays.unpack(value)));
 	}
 
 	/**
@@ -774,10 +1096,9 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	protected void setValue(String key, Object value) {
 		if (key == null && !(value instanceof KeyValueParser<?> || value instanceof Map<?, ?>)) {
 			if (value instanceof Collection<?> || (value.getClass().isArray())) {
-				structure.clear();
-				entries.clear();
-				structure.add(null);
-				entries.put(null, (value instanceof Collection<?>) ? ((Collection<?>) value).toArray() : value);
+				final KeyTree tree = getTree();
+				tree.clear();
+				tree.put(null, PackedArrays.pack((value instanceof Collection<?>) ? ((Collection<?>) value).toArray() : value));
 			} else {
 				throw new ParserException("The key null can only be used for Array, Collection, Map and KeyValueParser!");
 			}
@@ -793,56 +1114,183 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 				setValue(key, parser.get(null));
 			} else {
 				parser.forEach((parserKey, parserValue) -> {
-					setValue(key + "." + parserKey, parserValue);
 					setValue((key == null ? "" : key + ".") + parserKey, parserValue);
 				});
 			}
 		} else {
 			if (containsKey(null)) remove(null);
-			entries.put(key, value);
-			if (structure.contains(key)) return;
-			final String[] keys = key.split("\\.");
-			String[] currentKeys;
-			int layer = -1;
-			for (int i = 0; i < structure.size(); i++) {
-				currentKeys = structure.get(i).split("\\.");
-				for (int j = 0; j < currentKeys.length && j < keys.length; j++) {
-					if (currentKeys[j].equals(keys[j])) {
-						if (j > layer)
-							layer = j;
-					} else if (j <= layer && layer != -1) {
-						structure.add(i, key);
-						return;
-					} else {
-						break;
-					}
-				}
-			}
-			structure.add(key);
+			getTree().put(key, PackedArrays.pack(value));
 		}
 	}
 
 	/**
 	 * Gets the value by its key. The key null represents the root list. If there is
-	 * no value then it will return null.
+	 * no value then it will return null. Arrays are returned as they are stored,
+	 * homogeneous arrays of numbers and booleans are therefore packed.
 	 * 
 	 * @param key the path that represents the value
 	 * @return the value represented by its key
 	 */
 	protected Object getValue(String key) {
-		if (key == null) return entries.get(key);
-		final List<String> list = structure.stream().filter(path -> {
-			return path.startsWith(key) && (key.length() == path.length() || path.charAt(key.length()) == '.');
-		}).toList();
-		if (list.isEmpty()) {
-			return null;
-		} else if (list.size() == 1) {
-			return entries.get(key);
-		} else {
-			KeyValueParser<?> parser = getImplementationInstance();
-			list.forEach(path -> parser.set(path.substring(key.length()), entries.get(path)));
-			return parser;
+		final KeyTree tree = getTree();
+		if (key == null) return tree.get(key);
+		final KeyTree.Node node = tree.getNode(key);
+		if (node == null) return null;
+		if (!node.hasChildren()) return node.getValue();
+		final P parser = getImplementationInstance();
+		putChildren(node, parser);
+		return parser;
+	}
+
+	/**
+	 * Returns the stored value of the key without copying objects, so the
+	 * primitive getters read it with a single lookup.
+	 * 
+	 * @param key the path that represents the value
+	 * @return the value or null if the key represents an object or no value
+	 */
+	Object getLeafValue(String key) {
+		return getTree().get(key);
+	}
+
+	/**
+	 * Returns the stored value of the compiled key without copying objects.
+	 * 
+	 * @param path the compiled path that represents the value
+	 * @return the value or null if the key represents an object or no value
+	 */
+	Object getLeafValue(KeyPath path) {
+		return getTree().get(path);
+	}
+
+	/**
+	 * Converts a stored value into an int for the primitive getters and
+	 * {@link KeyPath}.
+	 * 
+	 * @param value    the stored value or null
+	 * @param standard the value, which is returned for null
+	 * @return the value as int
+	 * @throws ClassCastException if it is not possible to convert the value
+	 */
+	static int toInt(Object value, int standard) {
+		if (value == null) return standard;
+		if (value instanceof Number) return ((Number) value).intValue();
+		return ParsingUtils.convertNumber(PackedArrays.unpack(value), Integer.class);
+	}
+
+	/**
+	 * Converts a stored value into a long for the primitive getters and
+	 * {@link KeyPath}.
+	 * 
+	 * @param value    the stored value or null
+	 * @param standard the value, which is returned for null
+	 * @return the value as long
+	 * @throws ClassCastException if it is not possible to convert the value
+	 */
+	static long toLong(Object value, long standard) {
+		if (value == null) return standard;
+		if (value instanceof Number) return ((Number) value).longValue();
+		return ParsingUtils.convertNumber(PackedArrays.unpack(value), Long.class);
+	}
+
+	/**
+	 * Converts a stored value into a double for the primitive getters and
+	 * {@link KeyPath}.
+	 * 
+	 * @param value    the stored value or null
+	 * @param standard the value, which is returned for null
+	 * @return the value as double
+	 * @throws ClassCastException if it is not possible to convert the value
+	 */
+	static double toDouble(Object value, double standard) {
+		if (value == null) return standard;
+		if (value instanceof Number) return ((Number) value).doubleValue();
+		return ParsingUtils.convertNumber(PackedArrays.unpack(value), Double.class);
+	}
+
+	/**
+	 * Converts a stored value into a boolean for the primitive getters and
+	 * {@link KeyPath}.
+	 * 
+	 * @param value    the stored value or null
+	 * @param standard the value, which is returned for null
+	 * @return the value as boolean
+	 * @throws ClassCastException if it is not possible to convert the value
+	 */
+	static boolean toBoolean(Object value, boolean standard) {
+		if (value == null) return standard;
+		if (value instanceof Boolean) return (Boolean) value;
+		if (value instanceof Number) return ((Number) value).intValue() != 0;
+		return ParsingUtils.convertObject(PackedArrays.unpack(value), Boolean.class);
+	}
+
+	/**
+	 * Converts a stored array into the requested array type. Arrays of
+	 * primitive types are returned without boxing the elements.
+	 * 
+	 * @param array the stored array
+	 * @param type  the type of the array
+	 * @return the converted copy of the array
+	 */
+	private static Object toArray(Object array, Class<?> type) {
+		if (type == int[].class) return PackedArrays.toIntArray(array);
+		if (type == long[].class) return PackedArrays.toLongArray(array);
+		if (type == double[].class) return PackedArrays.toDoubleArray(array);
+		if (type == boolean[].class) return PackedArrays.toBooleanArray(array);
+		final Class<?> componentType = type.getComponentType();
+		final Object newArray = Array.newInstance(componentType, PackedArrays.length(array));
+		for (int i = 0; i < Array.getLength(newArray); i++) {
+			Array.set(newArray, i, ParsingUtils.convertObject(PackedArrays.get(array, i), componentType));
 		}
+		return newArray;
+	}
+
+	/**
+	 * Returns the stored array of the key. The value is read only once, so
+	 * the checks and the result always belong to the same version of the
+	 * entries, even if another thread changes the key in the meantime.
+	 * 
+	 * @param key the path that represents the array
+	 * @return the stored array
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 */
+	private Object getArrayValue(String key) {
+		return requireArray(key, getLeafValue(key));
+	}
+
+	/**
+	 * Checks, that the value of the key is an array.
+	 * 
+	 * @param key   the path that represents the array
+	 * @param value the stored value of the key or null
+	 * @return the stored array
+	 * @throws IllegalArgumentException if the value is not an array
+	 * @throws NullPointerException     if the value is null
+	 */
+	private static Object requireArray(String key, Object value) {
+		if (value == null) throw new NullPointerException("The key " + key + " is not present!");
+		if (!PackedArrays.isArray(value)) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
+		return value;
+	}
+
+	/**
+	 * Puts a value at the key without converting it. New keys are added behind
+	 * the existing keys of their object. This is meant for implementations,
+	 * which read values, that are already converted.
+	 * 
+	 * @param key   the path that represents the value
+	 * @param value the value to store
+	 */
+	protected void putEntry(String key, Object value) {
+		getTree().put(key, value);
+	}
+
+	/**
+	 * Removes all entries from the parser.
+	 */
+	protected void clearEntries() {
+		getTree().clear();
 	}
 
 	/**
@@ -857,23 +1305,143 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	}
 
 	/**
-	 * Gets the list of all keys in the right order, changing the order of the keys
-	 * will affect the output.
+	 * Gets the unmodifiable list of all keys in the order of the output. Use
+	 * {@link #putEntry(String, Object)} and {@link #clearEntries()} to change
+	 * the entries.
 	 * 
 	 * @return the ordered list of the keys
 	 */
 	protected List<String> getStructure() {
-		return structure;
+		return getTree().getKeys();
 	}
 
 	/**
-	 * Gets the {@link HashMap} of all entries in the parser. Each key represents a
-	 * value, but the value can be null. A string key is a path separated by dots.
+	 * Gets an unmodifiable {@link Map} view of all entries in the parser. Each key
+	 * represents a value, but the value can be null. A string key is a path
+	 * separated by dots. Use {@link #putEntry(String, Object)} and
+	 * {@link #clearEntries()} to change the entries.
 	 * 
-	 * @return the {@link HashMap} of all entries in the parser
+	 * @return the {@link Map} of all entries in the parser
 	 */
 	protected Map<String, Object> getEntries() {
-		return entries;
+		final KeyTree tree = getTree();
+		return new AbstractMap<>() {
+
+			@Override
+			public Object get(Object key) {
+				return key == null || key instanceof String ? tree.get((String) key) : null;
+			}
+
+			@Override
+			public boolean containsKey(Object key) {
+				return (key == null || key instanceof String) && tree.containsKey((String) key);
+			}
+
+			@Override
+			public int size() {
+				return tree.size();
+			}
+
+			@Override
+			public Set<Entry<String, Object>> entrySet() {
+				final List<Entry<String, Object>> entries = new ArrayList<>(tree.size());
+				tree.forEach((key, value) -> entries.add(new SimpleImmutableEntry<>(key, value)));
+				return Collections.unmodifiableSet(new LinkedHashSet<>(entries));
+			}
+
+		};
+	}
+
+	/**
+	 * Walks through the keys of the parser as a hierarchy of objects in the
+	 * order of the structure. Every object is opened and closed exactly once.
+	 * The root list is not visited.
+	 * 
+	 * @param visitor the visitor, which receives the objects and values
+	 * @throws IOException if the visitor throws an I/O exception
+	 */
+	protected void walkStructure(StructureVisitor visitor) throws IOException {
+		for (KeyTree.Node child : getTree().getRoot().getChildren()) walkNode(child, visitor);
+	}
+
+	/**
+	 * Walks through a node and all nodes below it.
+	 * 
+	 * @param node    the node to walk through
+	 * @param visitor the visitor, which receives the objects and values
+	 * @throws IOException if the visitor throws an I/O exception
+	 */
+	private void walkNode(KeyTree.Node node, StructureVisitor visitor) throws IOException {
+		if (node.hasValue()) visitor.value(node.getName(), node.getValue());
+		if (!node.hasChildren()) return;
+		visitor.beginObject(node.getName());
+		for (KeyTree.Node child : node.getChildren()) walkNode(child, visitor);
+		visitor.endObject();
+	}
+
+	/**
+	 * Returns the array of the key as buffer, which can be changed in place.
+	 * 
+	 * @param key the path that represents the array
+	 * @return the buffer of the array
+	 * @throws IllegalArgumentException if the key does not point to an array
+	 * @throws NullPointerException     if the the key represents no value
+	 */
+	private PackedArrays.Buffer getBuffer(String key) {
+		if (!isPresent(key)) throw new NullPointerException("The key " + key + " is not present!");
+		final PackedArrays.Buffer buffer = getTree().getBuffer(key);
+		if (buffer == null) throw new IllegalArgumentException("The key " + key + " does not represent an array!");
+		return buffer;
+	}
+
+	/**
+	 * Puts the values below the node with their paths relative to the node
+	 * into the parser.
+	 * 
+	 * @param node   the node of the object
+	 * @param parser the parser to put the values in
+	 */
+	private void putChildren(KeyTree.Node node, KeyValueParser<?> parser) {
+		for (KeyTree.Node child : node.getChildren()) child.forEach(child.getName(), (key, value) -> parser.putEntry(key, PackedArrays.share(value)));
+	}
+
+	/**
+	 * Creates an instance of the implementation, which stores its entries in
+	 * an existing tree.
+	 * 
+	 * @param tree the tree of the entries
+	 * @return the instance of the implementation
+	 */
+	P createInstance(KeyTree tree) {
+		final P parser = getImplementationInstance();
+		((KeyValueParser<?>) parser).tree = tree;
+		return parser;
+	}
+
+	/**
+	 * Returns a read-only copy of the parser in constant time, which shares
+	 * the entries with this parser and isn't affected by its later changes.
+	 * The parser is locked with <code>synchronized (parser)</code> while it
+	 * is copied.
+	 * 
+	 * @return the read-only copy of the parser
+	 */
+	P copyEntries() {
+		final KeyTree copy;
+		synchronized (this) {
+			copy = getTree().copy();
+		}
+		copy.freeze();
+		return createInstance(copy);
+	}
+
+	/**
+	 * Returns the tree, which stores the entries of the parser.
+	 * 
+	 * @return the tree of the entries
+	 */
+	KeyTree getTree() {
+		return tree;
 	}
 
 	/**
@@ -883,6 +1451,75 @@ public abstract class KeyValueParser<P extends KeyValueParser<P>> implements Par
 	 */
 	protected abstract P getImplementationInstance();
 	
+	/**
+	 * Receives the objects and values of the parser from
+	 * {@link KeyValueParser#walkStructure(StructureVisitor)}.
+	 */
+	protected interface StructureVisitor {
+		
+		/**
+		 * Called when an object begins.
+		 * 
+		 * @param name the name of the object
+		 * @throws IOException if an I/O exception occurs
+		 */
+		void beginObject(String name) throws IOException;
+		
+		/**
+		 * Called when the last object ends.
+		 * 
+		 * @throws IOException if an I/O exception occurs
+		 */
+		void endObject() throws IOException;
+		
+		/**
+		 * Called for every value inside the current object.
+		 * 
+		 * @param name  the name of the value
+		 * @param value the value
+		 * @throws IOException if an I/O exception occurs
+		 */
+		void value(String name, Object value) throws IOException;
+		
+	}
+	
+	/**
+	 * A read-only list view of an object array or a packed array, which
+	 * converts the elements, when they are accessed.
+	 * 
+	 * @param <T> the type of the elements
+	 */
+	private static class ArrayView<T> extends AbstractList<T> implements RandomAccess {
+		
+		private final Object array;
+		private final int size;
+		private final Class<T> type;
+		
+		/**
+		 * Creates a new view of the array.
+		 * 
+		 * @param array the object array or packed array
+		 * @param type  the type of the elements
+		 */
+		private ArrayView(Object array, Class<T> type) {
+			this.array = array;
+			this.size = PackedArrays.length(array);
+			this.type = type;
+		}
+		
+		@Override
+		public T get(int index) {
+			if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+			return ParsingUtils.convertObject(PackedArrays.get(array, index), type);
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+	}
+	
 	private record ParserEntry(KeyValueParser<?> parser, String key, String name, Object value, Consumer<Object> add) {};
 
 }
@@ -0,0 +1,297 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link JsonParser}, which parses strings and byte arrays lazily. The input
+ * is only scanned once to record the structure of the document on a compact
+ * int tape. Keys and values are decoded, when they are reached by
+ * {@link #get(String)}, {@link #getObject(String)} or
+ * {@link #forEach(BiConsumer)}. Values, which are read by their key, are
+ * cached afterwards, while {@link #forEach(BiConsumer)} decodes the values
+ * again for every iteration instead of keeping a second copy of the whole
+ * document. Reading a few values from large documents therefore doesn't
+ * allocate the whole document.<br>
+ * The parser switches to the normal key tree, as soon as it is modified or
+ * all keys are requested. The input must not be changed, while the parser
+ * still references it.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * JsonParser parser = new LazyJsonParser(bytes);
+ * String name = parser.get("my.name", String.class);
+ * </pre>
+ *
+ * @see {@link JsonParser}
+ */
+public class LazyJsonParser extends JsonParser {
+
+	private JsonTape tape;
+	private Map<String, Object> cache;
+
+	/**
+	 * Creates a new empty parser.
+	 */
+	public LazyJsonParser() {
+		super();
+	}
+
+	/**
+	 * Creates a new parser and scans the string lazily.
+	 *
+	 * @param jsonString input the input for the parser
+	 */
+	public LazyJsonParser(String jsonString) {
+		super(jsonString);
+	}
+
+	/**
+	 * Creates a new parser and scans the UTF-8 encoded bytes lazily.
+	 *
+	 * @param jsonBytes the UTF-8 encoded input for the parser
+	 */
+	public LazyJsonParser(byte[] jsonBytes) {
+		super();
+		parseIn(jsonBytes);
+	}
+
+	/**
+	 * Creates a new parser, reads the file and scans its content lazily.
+	 *
+	 * @param jsonFile the file to read
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	public LazyJsonParser(Path jsonFile) throws IOException {
+		super(jsonFile);
+	}
+
+	/**
+	 * Scans the string and records its structure without decoding keys and
+	 * values. This call will override the existing content of the parser!
+	 *
+	 * @param input the input for the parser
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 */
+	@Override
+	public JsonParser parseIn(String input) {
+		return setTape(new JsonTape(input));
+	}
+
+	/**
+	 * Scans the UTF-8 encoded bytes and records their structure without
+	 * decoding keys and values. This call will override the existing content
+	 * of the parser!
+	 *
+	 * @param input the UTF-8 encoded json document
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 */
+	@Override
+	public JsonParser parseIn(byte[] input) {
+		return setTape(new JsonTape(input, 0, input.length));
+	}
+
+	/**
+	 * Scans the UTF-8 encoded bytes of a heap buffer lazily. Direct buffers
+	 * are parsed directly into the key tree. This call will override the
+	 * existing content of the parser!
+	 *
+	 * @param input the buffer, which contains the json document
+	 * @return the own parser object for further customization
+	 * @throws ParserException if the document is not valid json
+	 */
+	@Override
+	public JsonParser parseIn(ByteBuffer input) {
+		if (!input.hasArray()) {
+			setTape(null);
+			return super.parseIn(input);
+		}
+		return setTape(new JsonTape(input.array(), input.arrayOffset() + input.position(), input.remaining()));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser parseIn(JsonReader reader) throws IOException {
+		setTape(null);
+		return super.parseIn(reader);
+	}
+
+	/**
+	 * Reads all bytes of the file and scans them lazily. This call will
+	 * override the existing content of the parser!
+	 *
+	 * @param file the file to read
+	 * @return the own parser object for further customization
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	@Override
+	public JsonParser parseFromFile(Path file) throws IOException {
+		return parseIn(Files.readAllBytes(file));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public JsonParser getObject(String key) {
+		if (tape == null) return super.getObject(key);
+		if (key == null) return new JsonParser();
+		final int index = tape.find(key);
+		if (index == -1) return new JsonParser();
+		if (tape.getType(index) == JsonTape.OBJECT) return (JsonParser) tape.decode(index);
+		return new JsonParser().set(key.substring(key.lastIndexOf('.') + 1), getValue(key));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isObject(String key) {
+		if (tape == null) return super.isObject(key);
+		final int index = tape.find(key);
+		return index != -1 && tape.getType(index) == JsonTape.OBJECT && tape.hasValues(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isPresent(String key) {
+		if (tape == null) return super.isPresent(key);
+		final int index = tape.find(key);
+		return index != -1 && tape.getType(index) != JsonTape.OBJECT && !tape.isNull(index);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean containsKey(String key) {
+		if (tape == null) return super.containsKey(key);
+		final int index = tape.find(key);
+		return index != -1 && tape.getType(index) != JsonTape.OBJECT;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean isEmpty() {
+		if (tape == null) return super.isEmpty();
+		return tape.isEmpty();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void forEach(BiConsumer<String, Object> action) {
+		if (tape == null) {
+			super.forEach(action);
+			return;
+		}
+		tape.forEach((key, value) -> action.accept(key, PackedArrays.unpack(cache.containsKey(key) ? cache.get(key) : value)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Object getValue(String key) {
+		if (tape == null) return super.getValue(key);
+		if (cache.containsKey(key)) return cache.get(key);
+		final int index = tape.find(key);
+		if (index == -1) return null;
+		final Object value = PackedArrays.pack(tape.decode(index));
+		if (tape.getType(index) != JsonTape.OBJECT) cache.put(key, value);
+		return value;
+	}
+
+	/**
+	 * Decodes the value of the key, if it isn't an object, without decoding
+	 * the rest of the document.
+	 *
+	 * @param key the path that represents the value
+	 * @return the value or null if the key represents an object or no value
+	 */
+	@Override
+	Object getLeafValue(String key) {
+		if (tape == null) return super.getLeafValue(key);
+		if (cache.containsKey(key)) return cache.get(key);
+		final int index = tape.find(key);
+		if (index == -1 || tape.getType(index) == JsonTape.OBJECT) return null;
+		final Object value = PackedArrays.pack(tape.decode(index));
+		cache.put(key, value);
+		return value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	Object getLeafValue(KeyPath path) {
+		if (tape == null) return super.getLeafValue(path);
+		return getLeafValue(path.toString());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected void clearEntries() {
+		setTape(null);
+	}
+
+	/**
+	 * Decodes the tape into the tree of the entries and returns it.
+	 *
+	 * @return the tree of the entries
+	 */
+	@Override
+	KeyTree getTree() {
+		materialize();
+		return super.getTree();
+	}
+
+	/**
+	 * Replaces the content of the parser with a new tape.
+	 *
+	 * @param tape the new tape or null to use the key tree
+	 * @return the own parser object for further customization
+	 */
+	private JsonParser setTape(JsonTape tape) {
+		this.tape = null;
+		this.cache = null;
+		super.clearEntries();
+		this.tape = tape;
+		this.cache = tape != null ? new HashMap<>() : null;
+		return this;
+	}
+
+	/**
+	 * Decodes all remaining keys and values of the tape into the key tree and
+	 * releases the tape.
+	 */
+	private void materialize() {
+		if (tape == null) return;
+		final JsonTape tape = this.tape;
+		final Map<String, Object> cache = this.cache;
+		this.tape = null;
+		this.cache = null;
+		final KeyTree tree = super.getTree();
+		tape.forEach((key, value) -> tree.put(key, cache.containsKey(key) ? cache.get(key) : value));
+	}
+
+}
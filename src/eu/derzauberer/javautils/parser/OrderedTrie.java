@@ -0,0 +1,603 @@
+package eu.derzauberer.javautils.parser;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A map of strings, which keeps its values in insertion order and shares its
+ * structure with its copies. Small maps store their entries in two flat
+ * arrays. Larger maps store the position of every key in a hash trie and the
+ * values in a trie of chunks, which is ordered by the positions. A change of
+ * a large map therefore copies only the path of the key in both tries, which
+ * is a few small arrays even for maps with millions of entries.<br>
+ * Like the nodes of a {@link KeyTree}, every map and every part of a large
+ * map belongs to the edition, which created it. Changes of the same edition
+ * are applied in place and changes of other editions copy the parts, which
+ * they change, so building a map costs about the same as building a hash
+ * map. Removed values leave a gap in the order, which is closed, when the
+ * gaps outnumber the values.
+ *
+ * @param <V> the type of the values
+ */
+final class OrderedTrie<V> implements Iterable<V> {
+
+	private static final int SMALL = 8;
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private final Object edition;
+	private int size;
+	private String[] keys;
+	private Object[] values;
+	private HashNode hashRoot;
+	private Chunk orderRoot;
+	private int shift;
+	private int count;
+
+	/**
+	 * Creates a new empty map.
+	 *
+	 * @param edition the edition, which owns the map
+	 */
+	OrderedTrie(Object edition) {
+		this.edition = edition;
+		this.keys = new String[0];
+		this.values = new Object[0];
+	}
+
+	/**
+	 * Creates a shallow copy of a map for another edition.
+	 *
+	 * @param trie    the map to copy
+	 * @param edition the edition of the copy
+	 */
+	private OrderedTrie(OrderedTrie<V> trie, Object edition) {
+		this.edition = edition;
+		this.size = trie.size;
+		if (trie.keys != null) {
+			this.keys = trie.keys.clone();
+			this.values = trie.values.clone();
+		}
+		this.hashRoot = trie.hashRoot;
+		this.orderRoot = trie.orderRoot;
+		this.shift = trie.shift;
+		this.count = trie.count;
+	}
+
+	/**
+	 * Returns the value of the key.
+	 *
+	 * @param key the key of the value
+	 * @return the value or null if the key doesn't exist
+	 */
+	@SuppressWarnings("unchecked")
+	V get(String key) {
+		if (keys != null) {
+			for (int i = 0; i < size; i++) {
+				if (key.equals(keys[i])) return (V) values[i];
+			}
+			return null;
+		}
+		final Entry entry = find(hashRoot, key, hash(key), 0);
+		return entry != null ? (V) getSlot(entry.slot) : null;
+	}
+
+	/**
+	 * Stores the value for the key. New keys are added behind all existing
+	 * keys and existing keys keep their position.
+	 *
+	 * @param key     the key of the value
+	 * @param value   the value, which must not be null
+	 * @param edition the edition, which changes the map
+	 * @return this map, if it belongs to the edition, or a changed copy
+	 */
+	OrderedTrie<V> put(String key, V value, Object edition) {
+		final OrderedTrie<V> trie = getWritable(edition);
+		if (trie.keys != null) {
+			for (int i = 0; i < trie.size; i++) {
+				if (key.equals(trie.keys[i])) {
+					trie.values[i] = value;
+					return trie;
+				}
+			}
+			if (trie.size < SMALL) {
+				trie.append(key, value);
+				return trie;
+			}
+			trie.grow();
+		}
+		final int hash = hash(key);
+		final Entry entry = find(trie.hashRoot, key, hash, 0);
+		if (entry != null) {
+			trie.setSlot(entry.slot, value);
+		} else {
+			trie.hashRoot = insert(trie.hashRoot, new Entry(key, trie.count), hash, 0, edition);
+			trie.setSlot(trie.count++, value);
+			trie.size++;
+		}
+		return trie;
+	}
+
+	/**
+	 * Adds a key, which doesn't exist yet, behind all existing keys. Unlike
+	 * {@link #put(String, Object, Object)}, the key isn't searched before.
+	 *
+	 * @param key     the new key
+	 * @param value   the value, which must not be null
+	 * @param edition the edition, which changes the map
+	 * @return this map, if it belongs to the edition, or a changed copy
+	 */
+	OrderedTrie<V> add(String key, V value, Object edition) {
+		final OrderedTrie<V> trie = getWritable(edition);
+		if (trie.keys != null) {
+			if (trie.size < SMALL) {
+				trie.append(key, value);
+				return trie;
+			}
+			trie.grow();
+		}
+		trie.hashRoot = insert(trie.hashRoot, new Entry(key, trie.count), hash(key), 0, edition);
+		trie.setSlot(trie.count++, value);
+		trie.size++;
+		return trie;
+	}
+
+	/**
+	 * Removes the key and its value.
+	 *
+	 * @param key     the key to remove
+	 * @param edition the edition, which changes the map
+	 * @return this map, if it belongs to the edition, or a changed copy
+	 */
+	OrderedTrie<V> remove(String key, Object edition) {
+		if (keys != null) {
+			for (int i = 0; i < size; i++) {
+				if (!key.equals(keys[i])) continue;
+				final OrderedTrie<V> trie = getWritable(edition);
+				System.arraycopy(trie.keys, i + 1, trie.keys, i, trie.size - i - 1);
+				System.arraycopy(trie.values, i + 1, trie.values, i, trie.size - i - 1);
+				trie.size--;
+				trie.keys[trie.size] = null;
+				trie.values[trie.size] = null;
+				return trie;
+			}
+			return this;
+		}
+		final int hash = hash(key);
+		final Entry entry = find(hashRoot, key, hash, 0);
+		if (entry == null) return this;
+		final OrderedTrie<V> trie = getWritable(edition);
+		trie.hashRoot = delete(trie.hashRoot, key, hash, 0, edition);
+		trie.setSlot(entry.slot, null);
+		trie.size--;
+		if (trie.count - trie.size > Math.max(trie.size, WIDTH)) trie.compact();
+		return trie;
+	}
+
+	/**
+	 * Returns the amount of entries.
+	 *
+	 * @return the amount of entries
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map contains no entries.
+	 *
+	 * @return if the map is empty
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns an iterator over the values in insertion order.
+	 *
+	 * @return the iterator over the values
+	 */
+	@Override
+	public Iterator<V> iterator() {
+		return new Iterator<>() {
+
+			private int index;
+			private Object[] chunk;
+			private V next = advance();
+
+			@Override
+			public boolean hasNext() {
+				return next != null;
+			}
+
+			@Override
+			public V next() {
+				if (next == null) throw new NoSuchElementException();
+				final V value = next;
+				next = advance();
+				return value;
+			}
+
+			/**
+			 * Finds the next value, which isn't a gap.
+			 *
+			 * @return the next value or null at the end
+			 */
+			@SuppressWarnings("unchecked")
+			private V advance() {
+				if (keys != null) return index < size ? (V) values[index++] : null;
+				while (index < count) {
+					if ((index & MASK) == 0 || chunk == null) chunk = getChunk(index);
+					final Object value = chunk[index++ & MASK];
+					if (value != null) return (V) value;
+				}
+				return null;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns this map, if it belongs to the edition, or a copy for the
+	 * edition.
+	 *
+	 * @param edition the edition, which changes the map
+	 * @return the map of the edition
+	 */
+	private OrderedTrie<V> getWritable(Object edition) {
+		return edition != null && this.edition == edition ? this : new OrderedTrie<>(this, edition);
+	}
+
+	/**
+	 * Appends an entry to the flat arrays, which have to contain less than
+	 * {@link #SMALL} entries.
+	 *
+	 * @param key   the new key
+	 * @param value the value
+	 */
+	private void append(String key, Object value) {
+		if (size == keys.length) {
+			final int capacity = Math.min(SMALL, Math.max(2, size * 2));
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		keys[size] = key;
+		values[size++] = value;
+	}
+
+	/**
+	 * Moves the entries of the flat arrays into the tries.
+	 */
+	private void grow() {
+		final String[] keys = this.keys;
+		final Object[] values = this.values;
+		final int size = this.size;
+		this.keys = null;
+		this.values = null;
+		this.size = 0;
+		for (int i = 0; i < size; i++) {
+			hashRoot = insert(hashRoot, new Entry(keys[i], count), hash(keys[i]), 0, edition);
+			setSlot(count++, values[i]);
+			this.size++;
+		}
+	}
+
+	/**
+	 * Rebuilds the tries without the gaps of removed values.
+	 */
+	private void compact() {
+		final String[] keys = new String[count];
+		collectSlots(hashRoot, keys);
+		final Object[] values = new Object[count];
+		for (int slot = 0; slot < count; slot++) {
+			if (keys[slot] != null) values[slot] = getSlot(slot);
+		}
+		hashRoot = null;
+		orderRoot = null;
+		shift = 0;
+		count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] == null) continue;
+			hashRoot = insert(hashRoot, new Entry(keys[i], count), hash(keys[i]), 0, edition);
+			setSlot(count++, values[i]);
+		}
+	}
+
+	/**
+	 * Stores the key of every entry below the node at its position.
+	 *
+	 * @param node   the node of the hash trie
+	 * @param bySlot the keys by their positions
+	 */
+	private static void collectSlots(HashNode node, String[] bySlot) {
+		if (node == null) return;
+		for (int i = 0; i < node.length; i++) {
+			final Object element = node.array[i];
+			if (element instanceof Entry) bySlot[((Entry) element).slot] = ((Entry) element).key;
+			else collectSlots((HashNode) element, bySlot);
+		}
+	}
+
+	/**
+	 * Returns the value at the position.
+	 *
+	 * @param slot the position of the value
+	 * @return the value or null for a gap
+	 */
+	private Object getSlot(int slot) {
+		return getChunk(slot)[slot & MASK];
+	}
+
+	/**
+	 * Returns the array of the chunk, which contains the position.
+	 *
+	 * @param slot the position of a value
+	 * @return the array of the chunk
+	 */
+	private Object[] getChunk(int slot) {
+		Chunk chunk = orderRoot;
+		for (int level = shift; level > 0; level -= BITS) chunk = (Chunk) chunk.array[(slot >>> level) & MASK];
+		return chunk.array;
+	}
+
+	/**
+	 * Stores the value at the position and copies the chunks on its path,
+	 * which belong to other editions. The trie gets another level, if the
+	 * position is outside of it.
+	 *
+	 * @param slot  the position of the value
+	 * @param value the value or null for a gap
+	 */
+	private void setSlot(int slot, Object value) {
+		if (orderRoot == null) {
+			orderRoot = new Chunk(edition);
+		} else if (slot >>> BITS >>> shift != 0) {
+			final Chunk root = new Chunk(edition);
+			root.array[0] = orderRoot;
+			orderRoot = root;
+			shift += BITS;
+		}
+		orderRoot = setSlot(orderRoot, shift, slot, value, edition);
+	}
+
+	/**
+	 * Stores the value at the position below the chunk.
+	 *
+	 * @param chunk   the chunk or null for a new chunk
+	 * @param shift   the shift of the level of the chunk
+	 * @param slot    the position of the value
+	 * @param value   the value or null for a gap
+	 * @param edition the edition, which changes the chunk
+	 * @return the chunk of the edition
+	 */
+	private static Chunk setSlot(Chunk chunk, int shift, int slot, Object value, Object edition) {
+		final Chunk writable = chunk == null ? new Chunk(edition) : chunk.getWritable(edition);
+		final int index = (slot >>> shift) & MASK;
+		if (shift == 0) writable.array[index] = value;
+		else writable.array[index] = setSlot((Chunk) writable.array[index], shift - BITS, slot, value, edition);
+		return writable;
+	}
+
+	/**
+	 * Spreads the hash code of the key.
+	 *
+	 * @param key the key
+	 * @return the hash of the key
+	 */
+	private static int hash(String key) {
+		final int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Finds the entry of the key below the node.
+	 *
+	 * @param node  the node of the hash trie or null
+	 * @param key   the key to find
+	 * @param hash  the hash of the key
+	 * @param shift the shift of the level of the node
+	 * @return the entry or null if the key doesn't exist
+	 */
+	private static Entry find(HashNode node, String key, int hash, int shift) {
+		while (node != null) {
+			if (shift >= Integer.SIZE) {
+				for (int i = 0; i < node.length; i++) {
+					if (key.equals(((Entry) node.array[i]).key)) return (Entry) node.array[i];
+				}
+				return null;
+			}
+			final int bit = 1 << ((hash >>> shift) & MASK);
+			if ((node.bitmap & bit) == 0) return null;
+			final Object element = node.array[Integer.bitCount(node.bitmap & (bit - 1))];
+			if (element instanceof Entry) return key.equals(((Entry) element).key) ? (Entry) element : null;
+			node = (HashNode) element;
+			shift += BITS;
+		}
+		return null;
+	}
+
+	/**
+	 * Inserts an entry, whose key doesn't exist yet, below the node.
+	 *
+	 * @param node    the node of the hash trie or null
+	 * @param entry   the entry to insert
+	 * @param hash    the hash of the key of the entry
+	 * @param shift   the shift of the level of the node
+	 * @param edition the edition, which changes the node
+	 * @return the node of the edition
+	 */
+	private static HashNode insert(HashNode node, Entry entry, int hash, int shift, Object edition) {
+		final HashNode writable = node == null ? new HashNode(edition) : node.getWritable(edition);
+		if (shift >= Integer.SIZE) {
+			writable.insertAt(writable.length, entry);
+			return writable;
+		}
+		final int bit = 1 << ((hash >>> shift) & MASK);
+		final int index = Integer.bitCount(writable.bitmap & (bit - 1));
+		if ((writable.bitmap & bit) == 0) {
+			writable.insertAt(index, entry);
+			writable.bitmap |= bit;
+		} else if (writable.array[index] instanceof Entry) {
+			final Entry existing = (Entry) writable.array[index];
+			final HashNode child = insert(null, existing, hash(existing.key), shift + BITS, edition);
+			writable.array[index] = insert(child, entry, hash, shift + BITS, edition);
+		} else {
+			writable.array[index] = insert((HashNode) writable.array[index], entry, hash, shift + BITS, edition);
+		}
+		return writable;
+	}
+
+	/**
+	 * Deletes the entry of an existing key below the node.
+	 *
+	 * @param node    the node of the hash trie
+	 * @param key     the key to delete
+	 * @param hash    the hash of the key
+	 * @param shift   the shift of the level of the node
+	 * @param edition the edition, which changes the node
+	 * @return the node of the edition or null if it became empty
+	 */
+	private static HashNode delete(HashNode node, String key, int hash, int shift, Object edition) {
+		final HashNode writable = node.getWritable(edition);
+		int index;
+		if (shift >= Integer.SIZE) {
+			index = 0;
+			while (!key.equals(((Entry) writable.array[index]).key)) index++;
+		} else {
+			final int bit = 1 << ((hash >>> shift) & MASK);
+			index = Integer.bitCount(writable.bitmap & (bit - 1));
+			if (writable.array[index] instanceof HashNode) {
+				final HashNode child = delete((HashNode) writable.array[index], key, hash, shift + BITS, edition);
+				if (child != null) {
+					writable.array[index] = child;
+					return writable;
+				}
+			}
+			writable.bitmap &= ~bit;
+		}
+		System.arraycopy(writable.array, index + 1, writable.array, index, writable.length - index - 1);
+		writable.array[--writable.length] = null;
+		return writable.length > 0 ? writable : null;
+	}
+
+	/**
+	 * Connects a key with the position of its value.
+	 */
+	private static final class Entry {
+
+		private final String key;
+		private final int slot;
+
+		/**
+		 * Creates a new entry.
+		 *
+		 * @param key  the key
+		 * @param slot the position of the value
+		 */
+		private Entry(String key, int slot) {
+			this.key = key;
+			this.slot = slot;
+		}
+
+	}
+
+	/**
+	 * A node of the hash trie, which contains entries and further nodes.
+	 * Below the last level, the node contains only entries with the same
+	 * hash. The array of the elements has spare capacity, so the edition of
+	 * the node can insert elements in place.
+	 */
+	private static final class HashNode {
+
+		private final Object edition;
+		private int bitmap;
+		private Object[] array;
+		private int length;
+
+		/**
+		 * Creates a new empty node.
+		 *
+		 * @param edition the edition, which owns the node
+		 */
+		private HashNode(Object edition) {
+			this.edition = edition;
+			this.array = new Object[2];
+		}
+
+		/**
+		 * Returns this node, if it belongs to the edition, or a copy for the
+		 * edition.
+		 *
+		 * @param edition the edition, which changes the node
+		 * @return the node of the edition
+		 */
+		private HashNode getWritable(Object edition) {
+			if (edition != null && this.edition == edition) return this;
+			final HashNode copy = new HashNode(edition);
+			copy.bitmap = bitmap;
+			copy.array = Arrays.copyOf(array, Math.max(length, 1));
+			copy.length = length;
+			return copy;
+		}
+
+		/**
+		 * Inserts an element at the index and moves the following elements
+		 * back.
+		 *
+		 * @param index   the index of the new element
+		 * @param element the new element
+		 */
+		private void insertAt(int index, Object element) {
+			if (length == array.length) array = Arrays.copyOf(array, length * 2);
+			System.arraycopy(array, index, array, index + 1, length - index);
+			array[index] = element;
+			length++;
+		}
+
+	}
+
+	/**
+	 * A chunk of the ordered trie, which contains values or further chunks.
+	 */
+	private static final class Chunk {
+
+		private final Object edition;
+		private final Object[] array;
+
+		/**
+		 * Creates a new empty chunk.
+		 *
+		 * @param edition the edition, which owns the chunk
+		 */
+		private Chunk(Object edition) {
+			this.edition = edition;
+			this.array = new Object[WIDTH];
+		}
+
+		/**
+		 * Creates a copy of a chunk.
+		 *
+		 * @param chunk   the chunk to copy
+		 * @param edition the edition of the copy
+		 */
+		private Chunk(Chunk chunk, Object edition) {
+			this.edition = edition;
+			this.array = chunk.array.clone();
+		}
+
+		/**
+		 * Returns this chunk, if it belongs to the edition, or a copy for the
+		 * edition.
+		 *
+		 * @param edition the edition, which changes the chunk
+		 * @return the chunk of the edition
+		 */
+		private Chunk getWritable(Object edition) {
+			return edition != null && this.edition == edition ? this : new Chunk(this, edition);
+		}
+
+	}
+
+}
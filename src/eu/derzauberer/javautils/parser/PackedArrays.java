@@ -0,0 +1,674 @@
+package eu.derzauberer.javautils.parser;
+
+/**
+ * Packs homogeneous arrays of numbers and booleans into primitive arrays, so
+ * that a parser doesn't store a boxed object for every element. Integers are
+ * packed into an int[] or long[], decimals into a double[] and booleans into
+ * {@link Bits}. Empty arrays and arrays with null values, strings, objects,
+ * nested arrays or mixed types are kept as object arrays. Parsers store packed
+ * arrays internally and unpack them, when an array is requested as object
+ * array.
+ */
+final class PackedArrays {
+
+	private static final int NONE = 0;
+	private static final int INT = 1;
+	private static final int LONG = 2;
+	private static final int DOUBLE = 3;
+	private static final int BOOLEAN = 4;
+
+	/**
+	 * Prevents the creation of instances.
+	 */
+	private PackedArrays() {
+	}
+
+	/**
+	 * Packs the value, if it is an array, which can be stored as primitive
+	 * array. Other primitive arrays are converted into the next larger packed
+	 * type or into an object array. Buffers are copied into a new array.
+	 *
+	 * @param value the value to pack
+	 * @return the packed array or the value itself
+	 */
+	static Object pack(Object value) {
+		if (value instanceof Object[]) return packObjects((Object[]) value);
+		if (value instanceof Buffer) return pack(((Buffer) value).toArray());
+		if (value == null || !value.getClass().isArray() || value instanceof int[] || value instanceof long[] || value instanceof double[]) return value;
+		if (value instanceof byte[]) {
+			final byte[] array = (byte[]) value;
+			final int[] packed = new int[array.length];
+			for (int i = 0; i < array.length; i++) packed[i] = array[i];
+			return packed;
+		} else if (value instanceof short[]) {
+			final short[] array = (short[]) value;
+			final int[] packed = new int[array.length];
+			for (int i = 0; i < array.length; i++) packed[i] = array[i];
+			return packed;
+		} else if (value instanceof float[]) {
+			final float[] array = (float[]) value;
+			final double[] packed = new double[array.length];
+			for (int i = 0; i < array.length; i++) packed[i] = widen(array[i]);
+			return packed;
+		} else if (value instanceof boolean[]) {
+			final boolean[] array = (boolean[]) value;
+			final Bits packed = new Bits(array.length);
+			for (int i = 0; i < array.length; i++) if (array[i]) packed.set(i);
+			return packed;
+		} else {
+			final char[] array = (char[]) value;
+			final Object[] objects = new Object[array.length];
+			for (int i = 0; i < array.length; i++) objects[i] = array[i];
+			return objects;
+		}
+	}
+
+	/**
+	 * Converts a packed array back into an object array. All other values are
+	 * returned without changes.
+	 *
+	 * @param value the value to unpack
+	 * @return the object array or the value itself
+	 */
+	static Object unpack(Object value) {
+		return isPacked(value) ? toObjectArray(value) : value;
+	}
+
+	/**
+	 * Checks if the value is a packed array or a buffer.
+	 *
+	 * @param value the value to check
+	 * @return if the value is a packed array
+	 */
+	static boolean isPacked(Object value) {
+		return value instanceof int[] || value instanceof long[] || value instanceof double[] || value instanceof Bits || value instanceof Buffer;
+	}
+
+	/**
+	 * Marks the value as shared, if it is a buffer, so that the buffer is
+	 * copied before its next change and the other owner of the value doesn't
+	 * see the change.
+	 *
+	 * @param value the value, which will be shared
+	 * @return the value itself
+	 */
+	static Object share(Object value) {
+		if (value instanceof Buffer) ((Buffer) value).edition = null;
+		return value;
+	}
+
+	/**
+	 * Checks if the value is an object array or a packed array.
+	 *
+	 * @param value the value to check
+	 * @return if the value is an array
+	 */
+	static boolean isArray(Object value) {
+		return value instanceof Object[] || isPacked(value);
+	}
+
+	/**
+	 * Returns the length of an object array or a packed array.
+	 *
+	 * @param array the array
+	 * @return the length of the array
+	 */
+	static int length(Object array) {
+		if (array instanceof Object[]) return ((Object[]) array).length;
+		if (array instanceof int[]) return ((int[]) array).length;
+		if (array instanceof long[]) return ((long[]) array).length;
+		if (array instanceof double[]) return ((double[]) array).length;
+		if (array instanceof Buffer) return ((Buffer) array).length;
+		return ((Bits) array).length();
+	}
+
+	/**
+	 * Returns the element of an object array or the boxed element of a packed
+	 * array.
+	 *
+	 * @param array the array
+	 * @param index the index of the element
+	 * @return the element at the index
+	 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+	 *                                        array
+	 */
+	static Object get(Object array, int index) {
+		if (array instanceof Object[]) return ((Object[]) array)[index];
+		if (array instanceof int[]) return ((int[]) array)[index];
+		if (array instanceof long[]) return ((long[]) array)[index];
+		if (array instanceof double[]) return ((double[]) array)[index];
+		if (array instanceof Buffer) return ((Buffer) array).get(index);
+		return ((Bits) array).get(index);
+	}
+
+	/**
+	 * Copies an object array or boxes the elements of a packed array into a
+	 * new object array.
+	 *
+	 * @param array the array
+	 * @return the new object array
+	 */
+	static Object[] toObjectArray(Object array) {
+		if (array instanceof Object[]) return ((Object[]) array).clone();
+		final Object[] objects = new Object[length(array)];
+		for (int i = 0; i < objects.length; i++) objects[i] = get(array, i);
+		return objects;
+	}
+
+	/**
+	 * Copies the array into a new int array. Elements of other types are
+	 * converted like {@link ParsingUtils#convertNumber(Object, Class)} does.
+	 *
+	 * @param array the array
+	 * @return the new int array
+	 * @throws ClassCastException if an element can't be converted
+	 */
+	static int[] toIntArray(Object array) {
+		if (array instanceof int[]) return ((int[]) array).clone();
+		if (array instanceof Buffer) {
+			final Object trimmed = ((Buffer) array).toArray();
+			return trimmed instanceof int[] ? (int[]) trimmed : toIntArray(trimmed);
+		}
+		final int[] result = new int[length(array)];
+		if (array instanceof long[]) {
+			final long[] values = (long[]) array;
+			for (int i = 0; i < result.length; i++) result[i] = (int) values[i];
+		} else if (array instanceof double[]) {
+			final double[] values = (double[]) array;
+			for (int i = 0; i < result.length; i++) result[i] = (int) values[i];
+		} else {
+			for (int i = 0; i < result.length; i++) result[i] = toNumber(get(array, i)).intValue();
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the array into a new long array. Elements of other types are
+	 * converted like {@link ParsingUtils#convertNumber(Object, Class)} does.
+	 *
+	 * @param array the array
+	 * @return the new long array
+	 * @throws ClassCastException if an element can't be converted
+	 */
+	static long[] toLongArray(Object array) {
+		if (array instanceof long[]) return ((long[]) array).clone();
+		if (array instanceof Buffer) {
+			final Object trimmed = ((Buffer) array).toArray();
+			return trimmed instanceof long[] ? (long[]) trimmed : toLongArray(trimmed);
+		}
+		final long[] result = new long[length(array)];
+		if (array instanceof int[]) {
+			final int[] values = (int[]) array;
+			for (int i = 0; i < result.length; i++) result[i] = values[i];
+		} else if (array instanceof double[]) {
+			final double[] values = (double[]) array;
+			for (int i = 0; i < result.length; i++) result[i] = (long) values[i];
+		} else {
+			for (int i = 0; i < result.length; i++) result[i] = toNumber(get(array, i)).longValue();
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the array into a new double array. Elements of other types are
+	 * converted like {@link ParsingUtils#convertNumber(Object, Class)} does.
+	 *
+	 * @param array the array
+	 * @return the new double array
+	 * @throws ClassCastException if an element can't be converted
+	 */
+	static double[] toDoubleArray(Object array) {
+		if (array instanceof double[]) return ((double[]) array).clone();
+		if (array instanceof Buffer) {
+			final Object trimmed = ((Buffer) array).toArray();
+			return trimmed instanceof double[] ? (double[]) trimmed : toDoubleArray(trimmed);
+		}
+		final double[] result = new double[length(array)];
+		if (array instanceof int[]) {
+			final int[] values = (int[]) array;
+			for (int i = 0; i < result.length; i++) result[i] = values[i];
+		} else if (array instanceof long[]) {
+			final long[] values = (long[]) array;
+			for (int i = 0; i < result.length; i++) result[i] = values[i];
+		} else {
+			for (int i = 0; i < result.length; i++) {
+				final Object value = get(array, i);
+				result[i] = value instanceof Float ? widen((Float) value) : toNumber(value).doubleValue();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Copies the array into a new boolean array. Numbers are true, if they are
+	 * not zero, and strings, if they are "true".
+	 *
+	 * @param array the array
+	 * @return the new boolean array
+	 * @throws ClassCastException if an element can't be converted
+	 */
+	static boolean[] toBooleanArray(Object array) {
+		if (array instanceof Buffer) return toBooleanArray(((Buffer) array).toArray());
+		final boolean[] result = new boolean[length(array)];
+		if (array instanceof Bits) {
+			final Bits bits = (Bits) array;
+			for (int i = 0; i < result.length; i++) result[i] = bits.get(i);
+		} else {
+			for (int i = 0; i < result.length; i++) {
+				final Boolean value = ParsingUtils.convertObject(get(array, i), Boolean.class);
+				result[i] = value != null && value;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Packs an object array, if all elements have the same primitive kind.
+	 *
+	 * @param array the array to pack
+	 * @return the packed array or the array itself
+	 */
+	private static Object packObjects(Object[] array) {
+		int kind = array.length > 0 ? kindOf(array[0]) : NONE;
+		for (int i = 1; i < array.length && kind != NONE; i++) {
+			final int next = kindOf(array[i]);
+			if (next == kind) continue;
+			if ((kind == INT && next == LONG) || (kind == LONG && next == INT)) kind = LONG;
+			else kind = NONE;
+		}
+		switch (kind) {
+		case INT:
+			final int[] ints = new int[array.length];
+			for (int i = 0; i < array.length; i++) ints[i] = ((Number) array[i]).intValue();
+			return ints;
+		case LONG:
+			final long[] longs = new long[array.length];
+			for (int i = 0; i < array.length; i++) longs[i] = ((Number) array[i]).longValue();
+			return longs;
+		case DOUBLE:
+			final double[] doubles = new double[array.length];
+			for (int i = 0; i < array.length; i++) doubles[i] = array[i] instanceof Float ? widen((Float) array[i]) : ((Double) array[i]);
+			return doubles;
+		case BOOLEAN:
+			final Bits bits = new Bits(array.length);
+			for (int i = 0; i < array.length; i++) if ((Boolean) array[i]) bits.set(i);
+			return bits;
+		default:
+			return array;
+		}
+	}
+
+	/**
+	 * Returns the primitive kind of an element.
+	 *
+	 * @param value the element
+	 * @return the kind of the element or {@link #NONE}
+	 */
+	private static int kindOf(Object value) {
+		if (value instanceof Integer || value instanceof Short || value instanceof Byte) return INT;
+		if (value instanceof Long) return LONG;
+		if (value instanceof Float || value instanceof Double) return DOUBLE;
+		if (value instanceof Boolean) return BOOLEAN;
+		return NONE;
+	}
+
+	/**
+	 * Widens a float to the double with the same decimal representation, so
+	 * that the packed value is written out like the float.
+	 *
+	 * @param value the float value
+	 * @return the double value
+	 */
+	private static double widen(float value) {
+		return Float.isFinite(value) ? Double.parseDouble(Float.toString(value)) : value;
+	}
+
+	/**
+	 * Converts an element into a number.
+	 *
+	 * @param value the element
+	 * @return the number
+	 * @throws ClassCastException if the element can't be converted
+	 */
+	private static Number toNumber(Object value) {
+		if (value instanceof Number) return (Number) value;
+		if (value == null) throw new ClassCastException("Cannot convert null to a number!");
+		return ParsingUtils.convertNumber(value, Number.class);
+	}
+
+	/**
+	 * A fixed size array of booleans, which stores every element as a single
+	 * bit.
+	 */
+	static final class Bits {
+
+		private final long[] words;
+		private final int length;
+
+		/**
+		 * Creates a new array, in which all elements are false.
+		 *
+		 * @param length the amount of elements
+		 */
+		Bits(int length) {
+			this.words = new long[(length + 63) >>> 6];
+			this.length = length;
+		}
+
+		/**
+		 * Returns the element at the index.
+		 *
+		 * @param index the index of the element
+		 * @return the element
+		 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+		 *                                        array
+		 */
+		boolean get(int index) {
+			if (index < 0 || index >= length) throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+			return (words[index >>> 6] & (1L << index)) != 0;
+		}
+
+		/**
+		 * Sets the element at the index to true.
+		 *
+		 * @param index the index of the element
+		 */
+		void set(int index) {
+			words[index >>> 6] |= 1L << index;
+		}
+
+		/**
+		 * Sets the element at the index.
+		 *
+		 * @param index the index of the element
+		 * @param value the new element
+		 */
+		void set(int index, boolean value) {
+			if (value) words[index >>> 6] |= 1L << index;
+			else words[index >>> 6] &= ~(1L << index);
+		}
+
+		/**
+		 * Returns the amount of elements.
+		 *
+		 * @return the amount of elements
+		 */
+		int length() {
+			return length;
+		}
+
+	}
+
+
+	/**
+	 * A growable array, which is changed in place. The elements are stored in
+	 * an object array or packed array with spare capacity, which grows by half
+	 * of its size, so appending elements costs amortized constant time. The
+	 * kind of the storage is widened, when an element doesn't fit into it.
+	 * Every buffer belongs to the edition of the tree, which created it, and
+	 * trees copy buffers of other editions or shared buffers, before they
+	 * change them.
+	 */
+	static final class Buffer {
+
+		private static final int MIN_CAPACITY = 8;
+
+		private Object array;
+		private int length;
+		private Object edition;
+
+		/**
+		 * Creates a new buffer.
+		 *
+		 * @param array   the storage with spare capacity
+		 * @param length  the amount of elements
+		 * @param edition the edition of the tree, which owns the buffer
+		 */
+		private Buffer(Object array, int length, Object edition) {
+			this.array = array;
+			this.length = length;
+			this.edition = edition;
+		}
+
+		/**
+		 * Returns the array as buffer of the edition. Buffers of the same
+		 * edition are returned without changes, all other arrays are copied
+		 * into a new buffer.
+		 *
+		 * @param array   the object array, packed array or buffer
+		 * @param edition the edition of the tree, which will change the buffer
+		 * @return the buffer of the edition
+		 */
+		static Buffer of(Object array, Object edition) {
+			if (array instanceof Buffer) {
+				final Buffer buffer = (Buffer) array;
+				if (buffer.edition == edition) return buffer;
+				return new Buffer(copyOf(buffer.array, buffer.length, capacity(buffer.length)), buffer.length, edition);
+			}
+			final int length = PackedArrays.length(array);
+			return new Buffer(copyOf(array, length, capacity(length)), length, edition);
+		}
+
+		/**
+		 * Returns the element at the index.
+		 *
+		 * @param index the index of the element
+		 * @return the boxed element
+		 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+		 *                                        buffer
+		 */
+		Object get(int index) {
+			checkIndex(index, length);
+			return PackedArrays.get(array, index);
+		}
+
+		/**
+		 * Replaces the element at the index.
+		 *
+		 * @param index the index of the element
+		 * @param value the new element
+		 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+		 *                                        buffer
+		 */
+		void set(int index, Object value) {
+			checkIndex(index, length);
+			prepare(value);
+			store(index, value);
+		}
+
+		/**
+		 * Inserts the element at the index and moves the following elements
+		 * back. An index equal to the length appends the element.
+		 *
+		 * @param index the index of the new element
+		 * @param value the new element
+		 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+		 *                                        buffer and not its length
+		 */
+		void insert(int index, Object value) {
+			checkIndex(index, length + 1);
+			prepare(value);
+			if (length == PackedArrays.length(array)) array = copyOf(array, length, capacity(length));
+			move(index, index + 1, length - index);
+			store(index, value);
+			length++;
+		}
+
+		/**
+		 * Removes the element at the index and moves the following elements
+		 * forward.
+		 *
+		 * @param index the index of the element
+		 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+		 *                                        buffer
+		 */
+		void remove(int index) {
+			checkIndex(index, length);
+			move(index + 1, index, length - index - 1);
+			length--;
+			if (array instanceof Object[]) ((Object[]) array)[length] = null;
+		}
+
+		/**
+		 * Returns the amount of elements.
+		 *
+		 * @return the amount of elements
+		 */
+		int length() {
+			return length;
+		}
+
+		/**
+		 * Copies the elements into a new array of the same kind without
+		 * spare capacity.
+		 *
+		 * @return the object array or packed array
+		 */
+		Object toArray() {
+			return copyOf(array, length, length);
+		}
+
+		/**
+		 * Converts the storage, if the element doesn't fit into it. An empty
+		 * buffer takes the kind of the element, integers widen an int array
+		 * to a long array and all other elements an object array.
+		 *
+		 * @param value the element, which will be stored
+		 */
+		private void prepare(Object value) {
+			final int kind = kindOf(value);
+			final int capacity = PackedArrays.length(array);
+			if (length == 0) {
+				if (kind != kindOfArray(array)) array = newArray(kind, capacity);
+				return;
+			}
+			final int current = kindOfArray(array);
+			if (current == NONE || current == kind || (current == LONG && kind == INT)) return;
+			final Object converted = newArray(current == INT && kind == LONG ? LONG : NONE, capacity);
+			for (int i = 0; i < length; i++) store(converted, i, PackedArrays.get(array, i));
+			array = converted;
+		}
+
+		/**
+		 * Stores the element at the index of the storage, which fits the
+		 * element.
+		 *
+		 * @param index the index of the element
+		 * @param value the element
+		 */
+		private void store(int index, Object value) {
+			store(array, index, value);
+		}
+
+		/**
+		 * Moves elements of the storage inside of the storage.
+		 *
+		 * @param from  the index of the first element to move
+		 * @param to    the new index of the first element
+		 * @param count the amount of elements to move
+		 */
+		private void move(int from, int to, int count) {
+			if (count <= 0) return;
+			if (!(array instanceof Bits)) {
+				System.arraycopy(array, from, array, to, count);
+				return;
+			}
+			final Bits bits = (Bits) array;
+			if (to > from) {
+				for (int i = count - 1; i >= 0; i--) bits.set(to + i, bits.get(from + i));
+			} else {
+				for (int i = 0; i < count; i++) bits.set(to + i, bits.get(from + i));
+			}
+		}
+
+		/**
+		 * Stores the element at the index of an array, which fits the element.
+		 *
+		 * @param array the object array or packed array
+		 * @param index the index of the element
+		 * @param value the element
+		 */
+		private static void store(Object array, int index, Object value) {
+			if (array instanceof Object[]) ((Object[]) array)[index] = value;
+			else if (array instanceof int[]) ((int[]) array)[index] = ((Number) value).intValue();
+			else if (array instanceof long[]) ((long[]) array)[index] = ((Number) value).longValue();
+			else if (array instanceof double[]) ((double[]) array)[index] = value instanceof Float ? widen((Float) value) : (Double) value;
+			else ((Bits) array).set(index, (Boolean) value);
+		}
+
+		/**
+		 * Returns the kind of the storage.
+		 *
+		 * @param array the object array or packed array
+		 * @return the kind of the storage or {@link #NONE}
+		 */
+		private static int kindOfArray(Object array) {
+			if (array instanceof int[]) return INT;
+			if (array instanceof long[]) return LONG;
+			if (array instanceof double[]) return DOUBLE;
+			if (array instanceof Bits) return BOOLEAN;
+			return NONE;
+		}
+
+		/**
+		 * Creates a new empty storage.
+		 *
+		 * @param kind     the kind of the storage
+		 * @param capacity the amount of elements, which fit into the storage
+		 * @return the object array or packed array
+		 */
+		private static Object newArray(int kind, int capacity) {
+			switch (kind) {
+			case INT: return new int[capacity];
+			case LONG: return new long[capacity];
+			case DOUBLE: return new double[capacity];
+			case BOOLEAN: return new Bits(capacity);
+			default: return new Object[capacity];
+			}
+		}
+
+		/**
+		 * Copies the first elements of an object array or packed array into a
+		 * new array of the same kind.
+		 *
+		 * @param array    the array to copy
+		 * @param length   the amount of elements to copy
+		 * @param capacity the capacity of the new array
+		 * @return the new array
+		 */
+		private static Object copyOf(Object array, int length, int capacity) {
+			if (array instanceof Bits) {
+				final Bits bits = new Bits(capacity);
+				System.arraycopy(((Bits) array).words, 0, bits.words, 0, (length + 63) >>> 6);
+				return bits;
+			}
+			final Object copy = newArray(kindOfArray(array), capacity);
+			System.arraycopy(array, 0, copy, 0, length);
+			return copy;
+		}
+
+		/**
+		 * Returns the capacity for a buffer, which grows beyond the length.
+		 *
+		 * @param length the current amount of elements
+		 * @return the new capacity
+		 */
+		private static int capacity(int length) {
+			return Math.max(MIN_CAPACITY, length + (length >> 1));
+		}
+
+		/**
+		 * Checks if the index is inside of the bounds.
+		 *
+		 * @param index  the index to check
+		 * @param length the exclusive upper bound
+		 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+		 *                                        bounds
+		 */
+		private static void checkIndex(int index, int length) {
+			if (index < 0 || index >= length) throw new ArrayIndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+		}
+
+	}
+
+}
@@ -1,8 +1,11 @@
 package eu.derzauberer.javautils.parser;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * This interface contains the abstract methods {@link #parseIn(String)} and
@@ -43,8 +46,22 @@ public interface Parsable<P extends Parsable<P>> {
 	public abstract String parseOut();
 	
 	/**
-	 * Writes the parsed output to a file and create the file before writing if the
-	 * file didn't exist. The method calls {@link #parseOut()} implicitly.
+	 * Writes the output of the parser to a {@link Writer}. The default
+	 * implementation writes the result of {@link #parseOut()}, parsers can
+	 * override it to stream their output. The writer is not closed.
+	 * 
+	 * @param writer the writer to write to
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public default void parseOut(Writer writer) throws IOException {
+		writer.write(parseOut());
+		writer.flush();
+	}
+	
+	/**
+	 * Writes the parsed output UTF-8 encoded to a file and create the file
+	 * before writing if the file didn't exist. The method calls
+	 * {@link #parseOut(Writer)} implicitly.
 	 * 
 	 * @param file the file to write
 	 * @return the own parser object for further customization
@@ -56,8 +73,49 @@ public interface Parsable<P extends Parsable<P>> {
 		if (!Files.exists(file) && file.getParent() != null) {
 			Files.createDirectories(file.getParent());
 		}
-		Files.writeString(file, parseOut());
+		try (Writer writer = Files.newBufferedWriter(file)) {
+			parseOut(writer);
+		}
 		return (P) this;
 	}
+	
+	/**
+	 * Writes the parsed output asynchronously to a file on a background
+	 * thread. Saves of this parser to the same file, which are requested
+	 * before a waiting save started, are merged into it, so a burst of saves
+	 * writes the file only once with the latest content. The output is
+	 * written to a temporary file, which is forced to the disk and replaces
+	 * the file atomically, if the file system supports atomic replacements.
+	 * The future is completed, after the replacement is durable. The file
+	 * keeps its permissions. Key value parsers are locked with
+	 * <code>synchronized (parser)</code> only while they are copied in
+	 * constant time and are written from the copy, other parsers are locked
+	 * while they are written, so modifications during a save should
+	 * synchronize on the parser as well. The
+	 * background threads don't keep the virtual machine alive, but saves,
+	 * which are pending at its shutdown, are finished by a shutdown hook.
+	 * 
+	 * @param file the file to write
+	 * @return a future, which is completed with the parser after the file was
+	 *         replaced or exceptionally if the file couldn't be written
+	 */
+	@SuppressWarnings("unchecked")
+	public default CompletableFuture<P> parseToFileAsync(Path file) {
+		return FileSaver.save((P) this, file, FileSaver.DEFAULT_EXECUTOR);
+	}
+	
+	/**
+	 * Writes the parsed output asynchronously to a file with the given
+	 * executor like {@link #parseToFileAsync(Path)}.
+	 * 
+	 * @param file     the file to write
+	 * @param executor the executor, which writes the file
+	 * @return a future, which is completed with the parser after the file was
+	 *         replaced or exceptionally if the file couldn't be written
+	 */
+	@SuppressWarnings("unchecked")
+	public default CompletableFuture<P> parseToFileAsync(Path file, Executor executor) {
+		return FileSaver.save((P) this, file, executor);
+	}
 
 }
@@ -1,5 +1,7 @@
 package eu.derzauberer.javautils.parser;
 
+import java.math.BigInteger;
+
 /**
  * Provides utility functions for parsing.
  */
@@ -48,7 +50,10 @@ public class ParsingUtils {
 
 	/**
 	 * Converts any object into a number if possible. Supported types are instances
-	 * of {@link Number}.
+	 * of {@link Number}. Strings are scanned with {@link #parseNumber(CharSequence)}
+	 * and otherwise parsed leniently like {@link Double#parseDouble(String)} or
+	 * converted into 0, if they are no numbers. Integers, which don't fit into
+	 * the requested integer type, are clamped to its minimum or maximum value.
 	 * 
 	 * @param <T>    the type into which the number should be converted
 	 * @param object the number input of the convert function
@@ -61,10 +66,13 @@ public class ParsingUtils {
 	public static <T extends Number> T convertNumber(Object object, Class<T> type) {
 		Number number;
 		if (object instanceof String) {
-			try {
-				number = Double.parseDouble((String) object);
-			} catch (NumberFormatException exception) {
-				number = 0;
+			number = parseNumber((String) object);
+			if (number == null) {
+				try {
+					number = Double.parseDouble((String) object);
+				} catch (NumberFormatException exception) {
+					number = 0;
+				}
 			}
 		}
 		else if (object instanceof Number) number = (Number) object;
@@ -72,15 +80,42 @@ public class ParsingUtils {
 		else throw new ClassCastException(
 				"The class " + object.getClass().getName() + " is not an instance of java.lang.Number, java.lang.Boolean or java.lang.String!");
 		if (type == Number.class) return type.cast(number);
-		else if (type == Byte.class || type == byte.class) return (T) Byte.valueOf(number.byteValue());
-		else if (type == Short.class || type == short.class) return (T) Short.valueOf(number.shortValue());
-		else if (type == Integer.class || type == int.class) return (T) Integer.valueOf(number.intValue());
-		else if (type == Long.class || type == long.class) return (T) Long.valueOf(number.longValue());
+		else if (type == Byte.class || type == byte.class) return (T) Byte.valueOf(isIntegral(number) ? (byte) clamp(number, Byte.MIN_VALUE, Byte.MAX_VALUE) : number.byteValue());
+		else if (type == Short.class || type == short.class) return (T) Short.valueOf(isIntegral(number) ? (short) clamp(number, Short.MIN_VALUE, Short.MAX_VALUE) : number.shortValue());
+		else if (type == Integer.class || type == int.class) return (T) Integer.valueOf(isIntegral(number) ? (int) clamp(number, Integer.MIN_VALUE, Integer.MAX_VALUE) : number.intValue());
+		else if (type == Long.class || type == long.class) return (T) Long.valueOf(isIntegral(number) ? clamp(number, Long.MIN_VALUE, Long.MAX_VALUE) : number.longValue());
 		else if (type == Float.class || type == float.class) return (T) Float.valueOf(number.floatValue());
 		else if (type == Double.class || type == double.class) return (T) Double.valueOf(number.doubleValue());
 		else throw new ClassCastException("The class " + type.getName() + " is not an instance of java.lang.Number!");
 	}
 
+	/**
+	 * Checks if the number is an instance of an integer type.
+	 * 
+	 * @param number the number to check
+	 * @return if the number is an integer
+	 */
+	private static boolean isIntegral(Number number) {
+		return number instanceof Integer || number instanceof Long || number instanceof Short
+				|| number instanceof Byte || number instanceof BigInteger;
+	}
+
+	/**
+	 * Clamps the integer to the range from the minimum to the maximum value
+	 * instead of cutting off the upper bits.
+	 * 
+	 * @param number  the integer to clamp
+	 * @param minimum the smallest allowed value
+	 * @param maximum the largest allowed value
+	 * @return the clamped value
+	 */
+	private static long clamp(Number number, long minimum, long maximum) {
+		if (number instanceof BigInteger && ((BigInteger) number).bitLength() > 63) {
+			return ((BigInteger) number).signum() < 0 ? minimum : maximum;
+		}
+		return Math.max(minimum, Math.min(maximum, number.longValue()));
+	}
+
 	/**
 	 * Try to convert any object into a string using the <code>toString()</code>
 	 * method. If the object is a string, you can decide if the output should be
@@ -105,7 +140,8 @@ public class ParsingUtils {
 	 * Try to convert a string back to an object. This does only work with
 	 * {@link Boolean}, {@link Number} and {@link String} as output. The method will
 	 * return the {@link String}, if there was no type found, in which the string
-	 * could be converted in.
+	 * could be converted in. Numbers are recognized with
+	 * {@link #parseNumber(CharSequence)}.
 	 * 
 	 * @param input the string, what will, converted in a primitive type or return
 	 *              itself if it is not a primitive type.
@@ -116,21 +152,91 @@ public class ParsingUtils {
 		else if (input.isEmpty()) return input;
 		else if (input.equals("true")) return true;
 		else if (input.equals("false")) return false;
-		else {
-			try {
-				double number = Double.parseDouble(input);
-				if (!input.contains(".")) {
-					if (Byte.MIN_VALUE <= number && number <= Byte.MAX_VALUE) return (byte) number;
-					else if (Short.MIN_VALUE <= number && number <= Short.MAX_VALUE) return (short) number;
-					else if (Integer.MIN_VALUE <= number && number <= Integer.MAX_VALUE) return (int) number;
-					else return (long) number;
-				} else {
-					if (Float.MIN_VALUE <= number && number <= Float.MAX_VALUE) return (float) number;
-					else return number;
-				}
-			} catch (NumberFormatException exception) {}
-			return addEscapeCodes(input);
+		final Number number = parseNumber(input);
+		return number != null ? number : addEscapeCodes(input);
+	}
+	
+	/**
+	 * Scans the input in a single pass and converts it into a number without
+	 * throwing exceptions for inputs, which are not numbers. Integers are
+	 * parsed exactly and returned as the smallest fitting type of
+	 * {@link Byte}, {@link Short}, {@link Integer}, {@link Long} and
+	 * {@link BigInteger}. Integers with an exponent like {@code 1e5} are
+	 * returned as integers as well, if they fit into a {@link Long}. Other
+	 * decimals are returned as {@link Float} if they are between
+	 * {@link Float#MIN_VALUE} and {@link Float#MAX_VALUE} or as {@link Double}
+	 * otherwise.
+	 * 
+	 * @param input the characters to scan
+	 * @return the number or null if the input is not a number
+	 */
+	public static Number parseNumber(CharSequence input) {
+		final int length = input.length();
+		int index = 0;
+		final boolean negative = length > 0 && input.charAt(0) == '-';
+		if (negative || (length > 0 && input.charAt(0) == '+')) index++;
+		final int integerStart = index;
+		long value = 0;
+		boolean overflow = false;
+		while (index < length && isDigit(input.charAt(index))) {
+			final int digit = input.charAt(index++) - '0';
+			if (value < (Long.MIN_VALUE + digit) / 10) overflow = true;
+			else value = value * 10 - digit;
+		}
+		final int integerDigits = index - integerStart;
+		boolean decimal = false;
+		boolean fraction = false;
+		if (index < length && input.charAt(index) == '.') {
+			decimal = true;
+			fraction = true;
+			final int fractionStart = ++index;
+			while (index < length && isDigit(input.charAt(index))) index++;
+			if (integerDigits == 0 && index == fractionStart) return null;
+		} else if (integerDigits == 0) {
+			return null;
 		}
+		if (index < length && (input.charAt(index) == 'e' || input.charAt(index) == 'E')) {
+			decimal = true;
+			index++;
+			if (index < length && (input.charAt(index) == '-' || input.charAt(index) == '+')) index++;
+			final int exponentStart = index;
+			while (index < length && isDigit(input.charAt(index))) index++;
+			if (index == exponentStart) return null;
+		}
+		if (index != length) return null;
+		if (!decimal && !overflow && (negative || value != Long.MIN_VALUE)) {
+			return toInteger(negative ? value : -value);
+		} else if (!decimal) {
+			return new BigInteger(input.toString());
+		}
+		final double number = Double.parseDouble(input.toString());
+		if (!fraction && number == Math.rint(number) && Math.abs(number) < 0x1p63) return toInteger((long) number);
+		if (Float.MIN_VALUE <= number && number <= Float.MAX_VALUE) return (float) number;
+		else return number;
+	}
+
+	/**
+	 * Returns the integer as the smallest fitting type of {@link Byte},
+	 * {@link Short}, {@link Integer} and {@link Long}.
+	 * 
+	 * @param value the integer
+	 * @return the integer in the smallest fitting type
+	 */
+	private static Number toInteger(long value) {
+		if (Byte.MIN_VALUE <= value && value <= Byte.MAX_VALUE) return (byte) value;
+		else if (Short.MIN_VALUE <= value && value <= Short.MAX_VALUE) return (short) value;
+		else if (Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE) return (int) value;
+		else return value;
+	}
+	
+	/**
+	 * Checks if the character is a decimal digit from 0 to 9.
+	 * 
+	 * @param character the character to check
+	 * @return if the character is a decimal digit
+	 */
+	private static boolean isDigit(char character) {
+		return character >= '0' && character <= '9';
 	}
 
 	/**
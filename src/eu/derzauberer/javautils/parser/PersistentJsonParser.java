@@ -0,0 +1,503 @@
+package eu.derzauberer.javautils.parser;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import eu.derzauberer.javautils.accessible.Accessor;
+
+/**
+ * An immutable json parser, which is changed by creating new versions.
+ * {@link #set(String, Object)}, {@link #remove(String)}, the array
+ * operations and {@link #update(Consumer)} don't change the parser, but
+ * return a new version of it, which shares all objects with this version
+ * except the objects on the path of the changed keys. Wide objects share
+ * their members as well and copy only a few small arrays around the changed
+ * member. A change therefore costs the depth of the key and the logarithm of
+ * the width of the changed objects instead of the size of the document, even
+ * for flat documents with hundreds of thousands of keys, and keeping old
+ * versions costs only the changed parts. Parsing input returns a new version
+ * as well. Versions never change, so a version can be read by multiple
+ * threads without locks.<br>
+ * The parser is no {@link JsonParser}, because a caller, which expects the
+ * changes of a {@link JsonParser}, would silently lose the new versions.
+ * The common reads are available directly, all other reads of
+ * {@link JsonParser} are available through the read-only {@link #view()}.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * PersistentJsonParser config = new PersistentJsonParser(file);
+ * PersistentJsonParser next = config.set("server.port", 8080);
+ * int port = config.get("server.port", Integer.class); // unchanged
+ * List&lt;String&gt; keys = next.view().getKeys();
+ * </pre>
+ *
+ * @see {@link JsonParser}
+ */
+public class PersistentJsonParser {
+
+	private final KeyTree tree;
+	private final JsonParser view;
+
+	/**
+	 * Creates a new empty parser.
+	 */
+	public PersistentJsonParser() {
+		this(new KeyTree());
+	}
+
+	/**
+	 * Creates a new parser and parses the string into the parser object
+	 * structure.
+	 *
+	 * @param jsonString input the input for the parser
+	 */
+	public PersistentJsonParser(String jsonString) {
+		this(new JsonParser(jsonString).getTree());
+	}
+
+	/**
+	 * Creates a new parser and reads a file and parse the file content in the
+	 * parser.
+	 *
+	 * @param jsonFile the file to read
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	public PersistentJsonParser(Path jsonFile) throws IOException {
+		this(new JsonParser(jsonFile).getTree());
+	}
+
+	/**
+	 * Creates a shallow copy of the original parser. The {@link #view()} of
+	 * another version is shared instead of copied.
+	 *
+	 * @param parser the parser to copy
+	 */
+	public PersistentJsonParser(KeyValueParser<?> parser) {
+		this(parser.getTree().isFrozen() ? parser.getTree() : new JsonParser(parser).getTree());
+	}
+
+	/**
+	 * Creates a new version, which stores its entries in the tree.
+	 *
+	 * @param tree the tree of the entries, which is frozen
+	 */
+	private PersistentJsonParser(KeyTree tree) {
+		tree.freeze();
+		this.tree = tree;
+		view = new JsonParser().createInstance(tree);
+	}
+
+	/**
+	 * Parses the input into a new version. This version isn't changed.
+	 *
+	 * @param input the input for the parser
+	 * @return the new version
+	 * @throws ParserException if the document is not valid json
+	 */
+	public PersistentJsonParser parseIn(String input) {
+		return new PersistentJsonParser(new JsonParser().parseIn(input).getTree());
+	}
+
+	/**
+	 * Parses the UTF-8 encoded bytes into a new version. This version isn't
+	 * changed.
+	 *
+	 * @param input the UTF-8 encoded json document
+	 * @return the new version
+	 * @throws ParserException if the document is not valid json
+	 */
+	public PersistentJsonParser parseIn(byte[] input) {
+		return new PersistentJsonParser(new JsonParser().parseIn(input).getTree());
+	}
+
+	/**
+	 * Parses the UTF-8 encoded bytes of the buffer into a new version. This
+	 * version isn't changed.
+	 *
+	 * @param input the buffer, which contains the json document
+	 * @return the new version
+	 * @throws ParserException if the document is not valid json
+	 */
+	public PersistentJsonParser parseIn(ByteBuffer input) {
+		return new PersistentJsonParser(new JsonParser().parseIn(input).getTree());
+	}
+
+	/**
+	 * Reads the document from the reader into a new version. This version
+	 * isn't changed.
+	 *
+	 * @param reader the reader to take the tokens from
+	 * @return the new version
+	 * @throws ParserException if the document is not valid json
+	 * @throws IOException     if an I/O exception occurs
+	 */
+	public PersistentJsonParser parseIn(JsonReader reader) throws IOException {
+		return new PersistentJsonParser(new JsonParser().parseIn(reader).getTree());
+	}
+
+	/**
+	 * Reads the file into a new version. This version isn't changed.
+	 *
+	 * @param file the file to read
+	 * @return the new version
+	 * @throws ParserException   if the document is not valid json
+	 * @throws SecurityException if java has no permission to read the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	public PersistentJsonParser parseFromFile(Path file) throws IOException {
+		return new PersistentJsonParser(new JsonParser(file).getTree());
+	}
+
+	/**
+	 * Parses only the values of the key paths into a new version. This
+	 * version isn't changed.
+	 *
+	 * @param input    the input for the parser
+	 * @param keyPaths the keys, which should be kept
+	 * @return the new version
+	 * @throws ParserException if the document is not valid json
+	 */
+	public PersistentJsonParser parseIn(String input, Set<String> keyPaths) {
+		return new PersistentJsonParser(new JsonParser().parseIn(input, keyPaths).getTree());
+	}
+
+	/**
+	 * Parses only the values of the key paths into a new version. This
+	 * version isn't changed.
+	 *
+	 * @param input    the UTF-8 encoded json document
+	 * @param keyPaths the keys, which should be kept
+	 * @return the new version
+	 * @throws ParserException if the document is not valid json
+	 */
+	public PersistentJsonParser parseIn(byte[] input, Set<String> keyPaths) {
+		return new PersistentJsonParser(new JsonParser().parseIn(input, keyPaths).getTree());
+	}
+
+	/**
+	 * Reads only the values of the key paths into a new version. This version
+	 * isn't changed.
+	 *
+	 * @param reader   the reader to take the tokens from
+	 * @param keyPaths the keys, which should be kept
+	 * @return the new version
+	 * @throws ParserException if the document is not valid json
+	 * @throws IOException     if an I/O exception occurs
+	 */
+	public PersistentJsonParser parseIn(JsonReader reader, Set<String> keyPaths) throws IOException {
+		return new PersistentJsonParser(new JsonParser().parseIn(reader, keyPaths).getTree());
+	}
+
+	/**
+	 * Returns a new version, in which the key stores the value. This version
+	 * isn't changed. See {@link KeyValueParser#set(String, Object)} for the
+	 * supported values.
+	 *
+	 * @param key   the path that represents the value
+	 * @param value any object
+	 * @return the new version
+	 */
+	public PersistentJsonParser set(String key, Object value) {
+		return update(parser -> parser.set(key, value));
+	}
+
+	/**
+	 * Returns a new version without the value of the key. This version isn't
+	 * changed.
+	 *
+	 * @param key the path that represents the value
+	 * @return the new version
+	 */
+	public PersistentJsonParser remove(String key) {
+		if (!tree.containsKey(key)) return this;
+		return update(parser -> parser.remove(key));
+	}
+
+	/**
+	 * Returns a new version, in which the index of the array stores the value.
+	 * This version isn't changed.
+	 *
+	 * @param key   the path that represents the array
+	 * @param index the array index of the value
+	 * @param value the new value of the index
+	 * @return the new version
+	 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+	 *                                        array
+	 * @throws IllegalArgumentException       if the key does not point to an
+	 *                                        array
+	 * @throws NullPointerException           if the the key represents no
+	 *                                        value
+	 */
+	public PersistentJsonParser setAtArrayIndex(String key, int index, Object value) {
+		return update(parser -> parser.setAtArrayIndex(key, index, value));
+	}
+
+	/**
+	 * Returns a new version, in which the value is added at the end of the
+	 * array. This version isn't changed. The array is copied into the new
+	 * version, so appending many values should be done at once with
+	 * {@link #update(Consumer)}.
+	 *
+	 * @param key   the path that represents the array
+	 * @param value the value to add
+	 * @return the new version
+	 * @throws IllegalArgumentException if the key represents an object or a
+	 *                                  value, which is not an array
+	 */
+	public PersistentJsonParser append(String key, Object value) {
+		return update(parser -> parser.append(key, value));
+	}
+
+	/**
+	 * Returns a new version, in which the value is inserted at the index of
+	 * the array. This version isn't changed.
+	 *
+	 * @param key   the path that represents the array
+	 * @param index the array index of the new value
+	 * @param value the value to insert
+	 * @return the new version
+	 * @throws ArrayIndexOutOfBoundsException if the index is out of range
+	 *                                        ({@code index < 0 || index > array.length})
+	 * @throws IllegalArgumentException       if the key does not point to an
+	 *                                        array
+	 * @throws NullPointerException           if the the key represents no
+	 *                                        value
+	 */
+	public PersistentJsonParser insertAt(String key, int index, Object value) {
+		return update(parser -> parser.insertAt(key, index, value));
+	}
+
+	/**
+	 * Returns a new version without the value at the index of the array. This
+	 * version isn't changed.
+	 *
+	 * @param key   the path that represents the array
+	 * @param index the array index of the value
+	 * @return the new version
+	 * @throws ArrayIndexOutOfBoundsException if the index is outside of the
+	 *                                        array
+	 * @throws IllegalArgumentException       if the key does not point to an
+	 *                                        array
+	 * @throws NullPointerException           if the the key represents no
+	 *                                        value
+	 */
+	public PersistentJsonParser removeAt(String key, int index) {
+		return update(parser -> parser.removeAt(key, index));
+	}
+
+	/**
+	 * Returns a new version, which contains the serialized object. This
+	 * version isn't changed.
+	 *
+	 * @param accessor the object to serialize
+	 * @return the new version
+	 */
+	public PersistentJsonParser serialize(Accessor<?> accessor) {
+		return serialize("", accessor);
+	}
+
+	/**
+	 * Returns a new version, which contains the serialized object at the key.
+	 * This version isn't changed.
+	 *
+	 * @param key      the path that represents the value
+	 * @param accessor the accessor with the object to serialize
+	 * @return the new version
+	 */
+	public PersistentJsonParser serialize(String key, Accessor<?> accessor) {
+		return update(parser -> parser.serialize(key, accessor));
+	}
+
+	/**
+	 * Returns a new version, in which all entries of the map are set. This
+	 * version isn't changed.
+	 *
+	 * @param entries the paths and their values
+	 * @return the new version
+	 */
+	public PersistentJsonParser setAll(Map<String, ?> entries) {
+		return update(parser -> parser.setAll(entries));
+	}
+
+	/**
+	 * Applies multiple changes at once and returns the result as new version.
+	 * The changes are applied to a mutable parser, which shares the entries
+	 * with this version and copies only the objects, which it changes. This
+	 * version isn't changed and the mutable parser must not be used after the
+	 * action.
+	 *
+	 * @param changes the action, which changes the mutable parser
+	 * @return the new version
+	 */
+	public PersistentJsonParser update(Consumer<JsonParser> changes) {
+		final KeyTree next = tree.copy();
+		changes.accept(view.createInstance(next));
+		return new PersistentJsonParser(next);
+	}
+
+	/**
+	 * Returns a read-only {@link JsonParser}, which reads this version without
+	 * copying it. All methods, which would change the view, throw an
+	 * {@link UnsupportedOperationException}.
+	 *
+	 * @return the read-only view of this version
+	 */
+	public JsonParser view() {
+		return view;
+	}
+
+	/**
+	 * Gets the value by its key like {@link JsonParser#get(String)}.
+	 *
+	 * @param key the path that represents the value
+	 * @return the value represented by its key
+	 */
+	public Object get(String key) {
+		return view.get(key);
+	}
+
+	/**
+	 * Gets the value by its key and convert it to the requested type like
+	 * {@link JsonParser#get(String, Class)}.
+	 *
+	 * @param <T>  type that the value will be cast in
+	 * @param key  the path that represents the value
+	 * @param type type that the value will be cast in
+	 * @return the value represented by its key
+	 */
+	public <T> T get(String key, Class<T> type) {
+		return view.get(key, type);
+	}
+
+	/**
+	 * Gets the value by its key and convert it to the requested type like
+	 * {@link JsonParser#get(String, Class, Object)}.
+	 *
+	 * @param <T>      type that the value will be cast in
+	 * @param key      the path that represents the value
+	 * @param type     type that the value will be cast in
+	 * @param standard the standard value, which will returned, if the
+	 *                 requested value is null
+	 * @return the value represented by its key
+	 */
+	public <T> T get(String key, Class<T> type, T standard) {
+		return view.get(key, type, standard);
+	}
+
+	/**
+	 * Gets the value by its key and convert it to the requested type in an
+	 * optional like {@link JsonParser#getOptional(String, Class)}.
+	 *
+	 * @param <T>  type that the value will be cast in
+	 * @param key  the path that represents the value
+	 * @param type type that the value will be cast in
+	 * @return the value as {@link Optional} represented by its key
+	 */
+	public <T> Optional<T> getOptional(String key, Class<T> type) {
+		return view.getOptional(key, type);
+	}
+
+	/**
+	 * Checks if the value of the key is present like
+	 * {@link JsonParser#isPresent(String)}.
+	 *
+	 * @param key the path that represents the value
+	 * @return if the value is present
+	 */
+	public boolean isPresent(String key) {
+		return view.isPresent(key);
+	}
+
+	/**
+	 * Checks if the value of the key exists like
+	 * {@link JsonParser#containsKey(String)}.
+	 *
+	 * @param key the path that represents the value
+	 * @return if the value exist
+	 */
+	public boolean containsKey(String key) {
+		return view.containsKey(key);
+	}
+
+	/**
+	 * Check if there is nothing stored in this version.
+	 *
+	 * @return if there is nothing stored
+	 */
+	public boolean isEmpty() {
+		return view.isEmpty();
+	}
+
+	/**
+	 * Returns the amount of entries in this version.
+	 *
+	 * @return the amount of entries
+	 */
+	public int size() {
+		return view.size();
+	}
+
+	/**
+	 * Converts this version into a json document like
+	 * {@link JsonParser#parseOut()}.
+	 *
+	 * @return the json document
+	 */
+	public String parseOut() {
+		return view.parseOut();
+	}
+
+	/**
+	 * Writes this version as json document to the writer like
+	 * {@link JsonParser#parseOut(Writer)}. The writer is not closed.
+	 *
+	 * @param writer the writer to write to
+	 * @throws IOException if an I/O exception occurs
+	 */
+	public void parseOut(Writer writer) throws IOException {
+		view.parseOut(writer);
+	}
+
+	/**
+	 * Writes this version UTF-8 encoded to a file like
+	 * {@link JsonParser#parseToFile(Path)}.
+	 *
+	 * @param file the file to write
+	 * @return this version
+	 * @throws SecurityException if java has no permission to write to the file
+	 * @throws IOException       if an I/O exception occurs
+	 */
+	public PersistentJsonParser parseToFile(Path file) throws IOException {
+		view.parseToFile(file);
+		return this;
+	}
+
+	/**
+	 * Converts this version into a json document like
+	 * {@link JsonParser#toString()}.
+	 *
+	 * @return the json document
+	 */
+	@Override
+	public String toString() {
+		return view.toString();
+	}
+
+	/**
+	 * Returns the frozen tree of this version.
+	 *
+	 * @return the tree of the entries
+	 */
+	KeyTree getTree() {
+		return tree;
+	}
+
+}
@@ -16,6 +16,8 @@ import eu.derzauberer.javautils.events.ClientDisconnectEvent;
 import eu.derzauberer.javautils.events.ClientDisconnectEvent.DisconnectCause;
 import eu.derzauberer.javautils.events.ClientMessageReceiveEvent;
 import eu.derzauberer.javautils.events.ClientMessageSendEvent;
+import eu.derzauberer.javautils.parser.JsonDecoder;
+import eu.derzauberer.javautils.parser.ParserException;
 import eu.derzauberer.javautils.util.Sender;
 
 /**
@@ -32,6 +34,7 @@ public class ClientService implements Sender, Closeable {
 	private DisconnectCause cause;
 	private boolean isDisconnected;
 	private boolean nextLineIgnored;
+	private volatile JsonDecoder decoder;
 	private Consumer<ClientMessageReceiveEvent> messageReceiveAction;
 	private Consumer<ClientMessageSendEvent> messageSendAction;
 	private Consumer<ClientConnectEvent> connectAction;
@@ -87,8 +90,20 @@ public class ClientService implements Sender, Closeable {
 	 */
 	protected void inputLoop() {
 		String message;
+		final byte[] buffer = new byte[8192];
 		try {
 			while (!isClosed()) {
+				final JsonDecoder decoder = this.decoder;
+				if (decoder != null) {
+					final int count = input.read(buffer);
+					if (count == -1) break;
+					try {
+						decoder.feed(buffer, 0, count);
+					} catch (ParserException exception) {
+						exception.printStackTrace();
+					}
+					continue;
+				}
 				message = readLine();
 				if (message.equals("null")) break;
 				final ClientMessageReceiveEvent event = new ClientMessageReceiveEvent(this, message);
@@ -284,6 +299,30 @@ public class ClientService implements Sender, Closeable {
 		return nextLineIgnored;
 	}
 
+	/**
+	 * Sets a decoder, which receives the incoming bytes in chunks instead of
+	 * lines. Every complete json document is passed to the decoder's action as
+	 * soon as its last byte arrives, so documents can contain line breaks and
+	 * can be split over multiple packets. The message receive actions are not
+	 * called, while a decoder is set. Set the decoder in the connect action to
+	 * receive the first message with it. Pass null to receive lines again.
+	 * 
+	 * @param decoder the decoder for incoming json documents or null
+	 */
+	public void setDecoder(JsonDecoder decoder) {
+		this.decoder = decoder;
+	}
+
+	/**
+	 * Returns the decoder, which receives the incoming bytes in chunks
+	 * instead of lines, or null if messages are received line by line.
+	 * 
+	 * @return the decoder for incoming json documents or null
+	 */
+	public JsonDecoder getDecoder() {
+		return decoder;
+	}
+
 	/**
 	 * Sets an action to execute when the socket receives a message.
 	 * 
@@ -7,6 +7,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -97,6 +98,19 @@ public class ServerService implements Closeable {
 		}
 	}
 
+	/**
+	 * Broadcasts the bytes between the position and the limit of the buffer
+	 * to all connected clients. The position of the buffer will not be
+	 * changed.
+	 * 
+	 * @param buffer the buffer to send
+	 */
+	public synchronized void broadcastBytes(ByteBuffer buffer) {
+		for (ClientService client : clients) {
+			client.sendBytes(buffer.duplicate());
+		}
+	}
+
 	/**
 	 * Broadcasts a string to all connected clients.
 	 * 
@@ -3,6 +3,7 @@ package eu.derzauberer.javautils.util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
@@ -150,6 +151,29 @@ public interface Sender {
 		} catch (IOException exception) {}
 	}
 
+	/**
+	 * Sends the bytes between the position and the limit of the buffer to the
+	 * stream and moves the position to the limit. Heap buffers are written
+	 * without copying them. It does nothing if the stream is already closed.
+	 * 
+	 * @param buffer the buffer to send
+	 */
+	default void sendBytes(ByteBuffer buffer) {
+		try {
+			if (buffer.hasArray()) {
+				getOutputStream().write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+				buffer.position(buffer.limit());
+			} else {
+				final byte[] bytes = new byte[Math.min(buffer.remaining(), 8192)];
+				while (buffer.hasRemaining()) {
+					final int length = Math.min(buffer.remaining(), bytes.length);
+					buffer.get(bytes, 0, length);
+					getOutputStream().write(bytes, 0, length);
+				}
+			}
+		} catch (IOException exception) {}
+	}
+
 	/**
 	 * Sends a string to the stream. It does nothing if the stream is already
 	 * closed.